@@ -17,11 +17,31 @@ import com.sun.istack.internal.Nullable;
 
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Created by hdablin on 24.03.17.
  */
 public class Chart {
+    // threads shared by all charts to draw traces in parallel
+    private static final ExecutorService renderingExecutor = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "Chart rendering");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+    // px added to every side of the trace tile for the lines width
+    private static final int TILE_SHOULDER = 8;
+
     private ChartConfig config = new ChartConfig();
     /*
      * 2 X-axis: 0(even) - BOTTOM and 1(odd) - TOP
@@ -36,6 +56,16 @@ public class Chart {
 
     private ArrayList<Integer> stackWeights = new ArrayList<Integer>();
     private List<DataPainter> dataPainters = new ArrayList<DataPainter>();
+    // notified from the data processing threads
+    private List<DataProcessingListener> dataProcessingListeners = new CopyOnWriteArrayList<>();
+    private final DataProcessingListener dataPaintersListener = new DataProcessingListener() {
+        @Override
+        public void onDataProcessed() {
+            for (DataProcessingListener listener : dataProcessingListeners) {
+                listener.onDataProcessed();
+            }
+        }
+    };
     private Legend legend;
     private Title title;
 
@@ -48,6 +78,9 @@ public class Chart {
     private DataProcessingConfig dataProcessingConfig;
 
     private boolean isDirty = true;
+    // number of changes that affect the static layer but are not seen in the axes state
+    private int changeCount;
+    private int appendCount;
 
     public Chart() {
         this(new DataProcessingConfig());
@@ -233,6 +266,11 @@ public class Chart {
         isDirty = false;
     }
 
+    private void invalidate() {
+        isDirty = true;
+        changeCount++;
+    }
+
     private void setXStartEnd(int areaX, int areaWidth) {
         for (AxisWrapper axis : xAxisList) {
             axis.setStartEnd(areaX, areaX + areaWidth);
@@ -639,9 +677,150 @@ public class Chart {
      * ==================================================
      */
     public void draw(BCanvas canvas) {
+        drawStaticLayer(canvas);
+        drawOverlayLayer(canvas);
+    }
+
+    /**
+     * The chart is drawn in two layers. The static layer (traces, axes, grids, title)
+     * is expensive to draw but changes only together with the key returned by this method,
+     * so it may be rendered once into an offscreen image and then just copied.
+     * The overlay layer (legend, crosshairs and tooltip) is cheap to draw and
+     * changes on every hover. It is drawn over the static one.
+     */
+    public Object getStaticLayerKey() {
+        List<Object> key = new ArrayList<>();
+        key.add(fullArea.x);
+        key.add(fullArea.y);
+        key.add(fullArea.width);
+        key.add(fullArea.height);
+        key.add(changeCount);
+        key.add(appendCount);
+        key.add(getSelectedTraceNumber());
+        for (AxisWrapper axis : xAxisList) {
+            addAxisState(key, axis);
+        }
+        for (AxisWrapper axis : yAxisList) {
+            addAxisState(key, axis);
+        }
+        return key;
+    }
+
+    /**
+     * When the chart is scrolled along the x axis (for example to keep
+     * the newest appended data visible) the graph area of the static layer
+     * is just shifted. So its cached image may be moved and only the newly exposed strip
+     * redrawn by {@link #drawScrolledStaticLayer(BCanvas, int)}.
+     *
+     * @return null if the graph area can not be scrolled that way
+     * (no x axis or both x axes are used)
+     */
+    @Nullable
+    public ScrollableLayer getScrollableLayer() {
+        if (graphArea.width == 0 || graphArea.height == 0) {
+            return null;
+        }
+        int scrollAxisIndex = -1;
+        for (int i = 0; i < xAxisList.size(); i++) {
+            if (xAxisList.get(i).isUsed()) {
+                if (scrollAxisIndex >= 0) {
+                    return null;
+                }
+                scrollAxisIndex = i;
+            }
+        }
+        if (scrollAxisIndex < 0) {
+            return null;
+        }
+        AxisWrapper scrollAxis = xAxisList.get(scrollAxisIndex);
+        Scale xScale = scrollAxis.getScale();
+        if (!(xScale instanceof LinearScale) || scrollAxis.getMax() == scrollAxis.getMin()) {
+            return null;
+        }
+        List<Object> key = new ArrayList<>();
+        key.add(fullArea.x);
+        key.add(fullArea.y);
+        key.add(fullArea.width);
+        key.add(fullArea.height);
+        key.add(changeCount);
+        key.add(getSelectedTraceNumber());
+        key.add(scrollAxis.getStart());
+        key.add(scrollAxis.getEnd());
+        for (AxisWrapper axis : yAxisList) {
+            addAxisState(key, axis);
+        }
+        double pixelsPerUnit = (scrollAxis.getEnd() - scrollAxis.getStart()) / (scrollAxis.getMax() - scrollAxis.getMin());
+        int dataEnd = graphArea.x;
+        for (DataPainter dataPainter : dataPainters) {
+            Range xMinMax = dataPainter.xMinMax();
+            if (dataPainter.getXIndex() == scrollAxisIndex && xMinMax != null) {
+                dataEnd = Math.max(dataEnd, (int) Math.ceil(xScale.scale(xMinMax.getMax())));
+            }
+        }
+        return new ScrollableLayer(graphArea, scrollAxis.getMin(), pixelsPerUnit, dataEnd, key);
+    }
+
+    /**
+     * Draws the static layer with the traces only in the graph area strip
+     * from the given x to the end. The rest of the graph area
+     * is then covered by the shifted image of the previous static layer,
+     * so background, title and axes are drawn once and traces - only within the strip
+     */
+    public void drawScrolledStaticLayer(BCanvas canvas, int fromX) {
+        if (fullArea.width == 0 || fullArea.height == 0) {
+            return;
+        }
+        BRectangle strip = null;
+        int graphEnd = graphArea.x + graphArea.width;
+        if (fromX < graphEnd) {
+            int stripStart = Math.max(graphArea.x, fromX);
+            strip = new BRectangle(stripStart, graphArea.y, graphEnd - stripStart, graphArea.height);
+        }
+        drawStaticLayer(canvas, strip);
+    }
+
+    private static void addAxisState(List<Object> key, AxisWrapper axis) {
+        key.add(axis.isUsed());
+        key.add(axis.getMin());
+        key.add(axis.getMax());
+        key.add(axis.getStart());
+        key.add(axis.getEnd());
+    }
+
+    public void drawOverlayLayer(BCanvas canvas) {
+        if (fullArea.width == 0 || fullArea.height == 0) {
+            return;
+        }
+        canvas.enableAntiAliasAndHinting();
+        // legend may lie over the graph area so it is drawn in the overlay layer
+        // and does not move together with the scrolled traces
+        if (isLegendEnabled()) {
+            legend.draw(canvas);
+        }
+        if (tooltip != null) {
+            for (Crosshair crosshair : tooltip.getXCrosshairs()) {
+                xAxisList.get(crosshair.getAxisIndex()).drawCrosshair(canvas, graphArea, crosshair.getPosition());
+            }
+            for (Crosshair crosshair : tooltip.getYCrosshairs()) {
+                yAxisList.get(crosshair.getAxisIndex()).drawCrosshair(canvas, graphArea, crosshair.getPosition());
+            }
+            tooltip.draw(canvas, new BRectangle(0, 0,fullArea.width,fullArea.height));
+        }
+    }
+
+    public void drawStaticLayer(BCanvas canvas) {
         if (fullArea.width == 0 || fullArea.height == 0) {
             return;
         }
+        drawStaticLayer(canvas, graphArea);
+    }
+
+    /**
+     * @param tracesArea graph area part to draw traces in. Null - no traces
+     */
+    private void drawStaticLayer(BCanvas canvas, @Nullable BRectangle tracesArea) {
+        canvas.save();
+        canvas.setClip(fullArea.x, fullArea.y, fullArea.width, fullArea.height);
         canvas.enableAntiAliasAndHinting();
         canvas.setColor(config.getMarginColor());
         canvas.fillRect(0, 0,fullArea.width,fullArea.height);
@@ -708,27 +887,124 @@ public class Chart {
                 axis.drawAxis(canvas, graphArea);
             }
         }
-        canvas.save();
-        canvas.setClip(graphArea.x, graphArea.y, graphArea.width, graphArea.height);
-        for (DataPainter dataPainter : dataPainters) {
-            for (int trace = 0; trace < dataPainter.traceCount(); trace++) {
-                dataPainter.drawTrace(canvas, trace, xAxisList.get(dataPainter.getXIndex()).getScale(), yAxisList.get(getTraceYIndex(dataPainter, trace)).getScale());
+        BRectangle tracesClip = tracesArea == null ? null : BRectangle.intersect(tracesArea, graphArea);
+        if (tracesClip != null) {
+            canvas.save();
+            canvas.setClip(tracesClip.x, tracesClip.y, tracesClip.width, tracesClip.height);
+            boolean isStrip = tracesClip.width < graphArea.width;
+            if (config.isParallelRenderingEnabled() && !isStrip) {
+                drawTracesInParallel(canvas, tracesClip);
+            } else {
+                for (DataPainter dataPainter : dataPainters) {
+                    for (int trace = 0; trace < dataPainter.traceCount(); trace++) {
+                        Scale xScale = xAxisList.get(dataPainter.getXIndex()).getScale();
+                        Scale yScale = yAxisList.get(getTraceYIndex(dataPainter, trace)).getScale();
+                        if (isStrip) {
+                            dataPainter.drawTrace(canvas, trace, xScale, yScale, tracesClip.x, tracesClip.x + tracesClip.width);
+                        } else {
+                            dataPainter.drawTrace(canvas, trace, xScale, yScale);
+                        }
+                    }
+                }
             }
+            canvas.restore();
         }
         canvas.restore();
-        if (isLegendEnabled()) {
-            legend.draw(canvas);
+    }
+
+    /**
+     * Every trace is drawn into its own tile by the rendering threads
+     * (the calling thread draws the tiles not yet taken by them).
+     * Tiles are composited in the traces order so the result is the same
+     * as if the traces were drawn one after another
+     */
+    private void drawTracesInParallel(BCanvas canvas, BRectangle tracesClip) {
+        List<FutureTask<BCanvas>> tileTasks = new ArrayList<>();
+        List<BRectangle> tileAreas = new ArrayList<>();
+        for (final DataPainter dataPainter : dataPainters) {
+            final Scale xScale = xAxisList.get(dataPainter.getXIndex()).getScale();
+            final ChartData drawingData = dataPainter.getDrawingData(xScale);
+            if (drawingData == null) {
+                continue;
+            }
+            for (int trace = 0; trace < dataPainter.traceCount(); trace++) {
+                if (!dataPainter.isTraceVisible(trace)) {
+                    continue;
+                }
+                AxisWrapper yAxis = yAxisList.get(getTraceYIndex(dataPainter, trace));
+                final Scale yScale = yAxis.getScale();
+                BRectangle tileArea = traceTileArea(dataPainter, drawingData, trace, yAxis, tracesClip);
+                if (tileArea == null) {
+                    continue;
+                }
+                final BCanvas tile = canvas.createCompatibleCanvas(tileArea.width, tileArea.height);
+                tile.translate(-tileArea.x, -tileArea.y);
+                tile.setClip(tileArea.x, tileArea.y, tileArea.width, tileArea.height);
+                final int tileTrace = trace;
+                FutureTask<BCanvas> tileTask = new FutureTask<>(new Callable<BCanvas>() {
+                    @Override
+                    public BCanvas call() {
+                        dataPainter.drawTraceData(tile, drawingData, tileTrace, xScale, yScale);
+                        return tile;
+                    }
+                });
+                renderingExecutor.execute(tileTask);
+                tileTasks.add(tileTask);
+                tileAreas.add(tileArea);
+            }
         }
-        if (tooltip != null) {
-            for (Crosshair crosshair : tooltip.getXCrosshairs()) {
-                xAxisList.get(crosshair.getAxisIndex()).drawCrosshair(canvas, graphArea, crosshair.getPosition());
+        try {
+            for (int i = 0; i < tileTasks.size(); i++) {
+                FutureTask<BCanvas> tileTask = tileTasks.get(i);
+                // does nothing if the task is already taken by a rendering thread
+                tileTask.run();
+                BRectangle tileArea = tileAreas.get(i);
+                canvas.drawCanvas(tileTask.get(), tileArea.x, tileArea.y);
             }
-            for (Crosshair crosshair : tooltip.getYCrosshairs()) {
-                yAxisList.get(crosshair.getAxisIndex()).drawCrosshair(canvas, graphArea, crosshair.getPosition());
+        } catch (InterruptedException ex) {
+            cancel(tileTasks);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            cancel(tileTasks);
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
             }
-            tooltip.draw(canvas, new BRectangle(0, 0,fullArea.width,fullArea.height));
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
         }
+    }
 
+    private static void cancel(List<FutureTask<BCanvas>> tasks) {
+        for (FutureTask<BCanvas> task : tasks) {
+            task.cancel(false);
+        }
+    }
+
+    /**
+     * The tile of the trace covers its stack and all trace points
+     * (that may lie outside the stack when the y axis is zoomed)
+     */
+    @Nullable
+    private BRectangle traceTileArea(DataPainter dataPainter, ChartData drawingData, int trace, AxisWrapper yAxis, BRectangle tracesClip) {
+        double top = Math.min(yAxis.getStart(), yAxis.getEnd());
+        double bottom = Math.max(yAxis.getStart(), yAxis.getEnd());
+        Range pixelRange = dataPainter.traceYPixelRange(drawingData, trace, yAxis.getScale());
+        if (pixelRange != null) {
+            top = Math.min(top, pixelRange.getMin());
+            bottom = Math.max(bottom, pixelRange.getMax());
+        } else {
+            top = tracesClip.y;
+            bottom = tracesClip.y + tracesClip.height;
+        }
+        int tileY = (int) Math.max(tracesClip.y, Math.floor(top) - TILE_SHOULDER);
+        int tileEnd = (int) Math.min(tracesClip.y + tracesClip.height, Math.ceil(bottom) + TILE_SHOULDER);
+        if (tileEnd <= tileY) {
+            return null;
+        }
+        return new BRectangle(tracesClip.x, tileY, tracesClip.width, tileEnd - tileY);
     }
 
     public int stackCount() {
@@ -741,6 +1017,7 @@ public class Chart {
             dataPainter.appendData();
         }
         isDirty = true;
+        appendCount++;
     }
 
     public String[] getTraceNames() {
@@ -828,30 +1105,32 @@ public class Chart {
                 trace++;
             }
         }
-        isDirty = true;
+        invalidate();
     }
 
 
     public void setTitle(String title) {
         this.title.setTitle(title);
-        isDirty = true;
+        invalidate();
     }
 
     public void setTraceColor(int trace, BColor color) {
         DataPainterTrace dataPainterTrace = generalTraceNumberToDataPainterTrace(trace);
         dataPainterTrace.getDataPainter().setTraceColor(dataPainterTrace.getTrace(), color);
+        changeCount++;
     }
 
     public void setTraceName(int trace, String name) {
         DataPainterTrace dataPainterTrace = generalTraceNumberToDataPainterTrace(trace);
         dataPainterTrace.getDataPainter().setTraceName(dataPainterTrace.getTrace(), name);
         legend.setTraceName(dataPainterTrace, name);
+        changeCount++;
     }
 
     public void setStackWeight(int stack, int weight) {
         checkStackNumber(stack);
         stackWeights.set(stack, weight);
-        isDirty = true;
+        invalidate();
     }
 
     public void addStack() {
@@ -865,7 +1144,7 @@ public class Chart {
         yAxisList.add(rightAxis);
         stackWeights.add(weight);
 
-        isDirty = true;
+        invalidate();
     }
 
     /**
@@ -894,7 +1173,7 @@ public class Chart {
         stackWeights.remove(stack);
         yAxisList.remove(stack * 2 + 1);
         yAxisList.remove(stack * 2);
-        isDirty = true;
+        invalidate();
     }
 
     /**
@@ -980,6 +1259,7 @@ public class Chart {
             }
         }
 
+        dataPainter.setDataProcessingListener(dataPaintersListener);
         dataPainters.add(dataPainter);
 
         if (isLegendEnabled()) {
@@ -988,7 +1268,16 @@ public class Chart {
                 legend.add(new DataPainterTrace(dataPainter, traceNumber));
             }
         }
-        isDirty = true;
+        invalidate();
+    }
+
+    /**
+     * If asynchronous data processing is enabled (see {@link DataProcessingConfig#setAsyncProcessingEnabled(boolean)})
+     * the listener is notified on a worker thread every time new processed data are ready.
+     * The chart should then be redrawn (on the drawing thread).
+     */
+    public void addDataProcessingListener(DataProcessingListener listener) {
+        dataProcessingListeners.add(listener);
     }
 
     public void removeTrace(int trace) {
@@ -1033,7 +1322,7 @@ public class Chart {
                 yAxisList.get(i).setUsed(false);
             }
         }
-        isDirty = true;
+        invalidate();
     }
 
     public void setArea(BRectangle area) {
@@ -1062,12 +1351,12 @@ public class Chart {
 
     public void setXConfig(XAxisPosition xPosition, AxisConfig axisConfig) {
         xAxisList.get(getXIndex(xPosition)).setConfig(axisConfig);
-        isDirty = true;
+        invalidate();
     }
 
     public void setYConfig(int stack, YAxisPosition yPosition, AxisConfig axisConfig) {
         yAxisList.get(getYIndex(stack, yPosition)).setConfig(axisConfig);
-        isDirty = true;
+        invalidate();
     }
 
     public void setXPrefixAndSuffix(XAxisPosition xPosition, @Nullable String prefix, @Nullable String suffix) {
@@ -1084,12 +1373,12 @@ public class Chart {
 
     public void setXTitle(XAxisPosition xPosition, @Nullable String title) {
         xAxisList.get(getXIndex(xPosition)).setTitle(title);
-        isDirty = true;
+        invalidate();
     }
 
     public void setYTitle(int stack, YAxisPosition yPosition, @Nullable String title) {
         yAxisList.get(getYIndex(stack, yPosition)).setTitle(title);
-        isDirty = true;
+        invalidate();
     }
 
 
@@ -1116,12 +1405,12 @@ public class Chart {
 
     public void setXScale(XAxisPosition xPosition, Scale scale) {
         xAxisList.get(getXIndex(xPosition)).setScale(scale);
-        isDirty = true;
+        invalidate();
     }
 
     public void setYScale(int stack, YAxisPosition yPosition, Scale scale) {
         yAxisList.get(getYIndex(stack, yPosition)).setScale(scale);
-        isDirty = true;
+        invalidate();
     }
 
 
@@ -33,6 +33,9 @@ public class ChartConfig {
 
     private int defaultStackWeight = 4;
 
+    // traces are drawn into separate tiles by several threads
+    private boolean isParallelRenderingEnabled = false;
+
     public ChartConfig() {
         final BColor[] colors = {BColor.BLUE, BColor.RED, BColor.GRAY};
         BColor bgColor = BColor.WHITE;
@@ -71,6 +74,20 @@ public class ChartConfig {
         primaryXPosition = chartConfig.primaryXPosition;
         primaryYPosition = chartConfig.primaryYPosition;
         defaultStackWeight = chartConfig.defaultStackWeight;
+        isParallelRenderingEnabled = chartConfig.isParallelRenderingEnabled;
+    }
+
+    public boolean isParallelRenderingEnabled() {
+        return isParallelRenderingEnabled;
+    }
+
+    /**
+     * If enabled every trace is drawn into its own offscreen tile
+     * by the shared pool of rendering threads and then the tiles are composited.
+     * Makes sense for charts with many heavy traces (multichannel signals)
+     */
+    public void setParallelRenderingEnabled(boolean parallelRenderingEnabled) {
+        isParallelRenderingEnabled = parallelRenderingEnabled;
     }
 
     public int getStackGap() {
@@ -11,6 +11,12 @@ import com.biorecorder.data.utils.PrimitiveUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Created by galafit on 9/7/18.
@@ -19,6 +25,16 @@ class DataManager {
     // NO REGROUPING if axis length change less then GROUPING_STABILITY
     private static final int GROUPING_STABILITY = 20; // percents
     private static final int ARGUMENT_COLUMN = 0;
+    // worker threads shared by all charts for asynchronous data processing
+    private static final ExecutorService processingExecutor = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "Chart data processing");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
 
     private final ChartData data;
     private DataProcessingConfig processingConfig;
@@ -30,9 +46,25 @@ class DataManager {
     private int prevPixelsPerDataPoint = -1;
     private int prevDataSize = -1;
     private List<? extends GroupInterval> groupingIntervals;
+    // grouping state (changed only under processingLock)
+    private Scale groupingScale;
+    private int groupedDataSize = -1;
+    private boolean isProcessedDataGrouped;
+
+    // grouping and appending of data are done under this lock
+    private final ReentrantLock processingLock = new ReentrantLock();
+    // append waiting until the processing job releases the lock
+    private final AtomicBoolean isAppendPending = new AtomicBoolean();
+    private DataProcessingListener processingListener;
+    private ProcessingRequest lastRequest;
+    private Future<?> processingJob;
+    private volatile int lastRequestNumber;
+    private volatile ProcessingResult completedResult;
 
     private int[] sorter;
     private boolean isSorterNeedUpdate = true;
+    private final double[] cropValues = new double[2];
+    private final int[] cropIndexes = new int[2];
 
     public DataManager(ChartData data, DataProcessingConfig dataProcessingConfig) {
         this.data = data;
@@ -57,11 +89,40 @@ class DataManager {
         }
     }
 
+    /**
+     * Data are never appended while they are processed. If a processing job holds
+     * the lock the append is queued and done by the job when it finishes,
+     * so the calling (painting) thread never waits for the grouping
+     */
     public void appendData() {
-        data.appendData();
+        isAppendPending.set(true);
+        if (processingLock.tryLock()) {
+            try {
+                appendPendingData();
+            } finally {
+                processingLock.unlock();
+            }
+        }
         isSorterNeedUpdate = true;
     }
 
+    /**
+     * Must be called under the processingLock
+     *
+     * @return true if data were appended
+     */
+    private boolean appendPendingData() {
+        if (isAppendPending.getAndSet(false)) {
+            data.appendData();
+            return true;
+        }
+        return false;
+    }
+
+    public void setDataProcessingListener(DataProcessingListener listener) {
+        processingListener = listener;
+    }
+
     public int nearest(double xValue) {
         // "lazy" sorting solo when "nearest" is called
         ChartData data;
@@ -133,13 +194,29 @@ class DataManager {
         if (markSize > 0) {
             pixelsPerDataPoint = markSize;
         }
-        if (prevScale == null || !prevScale.getClass().equals(xScale.getClass()) &&
-                prevScale instanceof TimeScale || xScale instanceof TimeScale) {
-            createGroupingIntervals(xScale);
+        if (processingConfig.isAsyncProcessingEnabled() && processedData != null) {
+            ProcessingResult result = completedResult;
+            if (result != null && result.data != processedData) {
+                processedData = result.data;
+                prevScale = result.request.scale;
+                prevPixelsPerDataPoint = result.request.pixelsPerDataPoint;
+                prevDataSize = result.request.dataSize;
+                isSorterNeedUpdate = true;
+            }
+            if (!isProcessedDataOk(xScale, pixelsPerDataPoint)) {
+                requestProcessing(xScale, pixelsPerDataPoint);
+            }
+            // until the new data are ready the previous ones are drawn with the current scale
+            return processedData;
         }
 
         if (!isProcessedDataOk(xScale, pixelsPerDataPoint)) {
-            processedData = processData(xScale, pixelsPerDataPoint);
+            processingLock.lock();
+            try {
+                processedData = process(xScale, pixelsPerDataPoint);
+            } finally {
+                processingLock.unlock();
+            }
             prevScale = xScale.copy();
             prevPixelsPerDataPoint = pixelsPerDataPoint;
             prevDataSize = data.rowCount();
@@ -147,6 +224,87 @@ class DataManager {
         return processedData;
     }
 
+    /**
+     * Submits the processing of data for the given scale to the worker threads.
+     * Requests are coalesced: if the previous request has not started yet it is cancelled,
+     * and a started job whose request becomes stale is stopped between the processing steps
+     * and its result is dropped.
+     */
+    private void requestProcessing(Scale xScale, int pixelsPerDataPoint) {
+        int dataSize = data.rowCount();
+        if (lastRequest != null && lastRequest.isSame(xScale, pixelsPerDataPoint, dataSize)) {
+            return;
+        }
+        if (processingJob != null) {
+            processingJob.cancel(false);
+        }
+        ProcessingRequest request = new ProcessingRequest(xScale.copy(), pixelsPerDataPoint, dataSize, lastRequestNumber + 1);
+        lastRequest = request;
+        lastRequestNumber = request.number;
+        processingJob = processingExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                runProcessing(request);
+            }
+        });
+    }
+
+    private void runProcessing(ProcessingRequest request) {
+        boolean isChanged = false;
+        processingLock.lock();
+        try {
+            isChanged = appendPendingData();
+            // the user keeps zooming or scrolling and this request is already out of date
+            if (isStale(request)) {
+                return;
+            }
+            ChartData resultData = process(request.scale, request.pixelsPerDataPoint);
+            if (isStale(request)) {
+                return;
+            }
+            if (isProcessedDataGrouped) {
+                // grouped data may be regrouped or appended by the next jobs
+                // while the result is drawn, so the drawn result is a copy
+                resultData = resultData.slice(0, resultData.rowCount());
+                if (isStale(request)) {
+                    return;
+                }
+            }
+            completedResult = new ProcessingResult(resultData, request);
+            isChanged = true;
+        } finally {
+            isChanged = appendPendingData() || isChanged;
+            processingLock.unlock();
+            // data may be appended after the pending append was checked but before the unlock
+            if (isAppendPending.get() && processingLock.tryLock()) {
+                try {
+                    isChanged = appendPendingData() || isChanged;
+                } finally {
+                    processingLock.unlock();
+                }
+            }
+            DataProcessingListener listener = processingListener;
+            if (isChanged && listener != null) {
+                listener.onDataProcessed();
+            }
+        }
+    }
+
+    private boolean isStale(ProcessingRequest request) {
+        return request.number != lastRequestNumber;
+    }
+
+    private ChartData process(Scale xScale, int pixelsPerDataPoint) {
+        if (groupingScale == null || !groupingScale.getClass().equals(xScale.getClass()) &&
+                groupingScale instanceof TimeScale || xScale instanceof TimeScale) {
+            createGroupingIntervals(xScale);
+        }
+        groupingScale = xScale;
+        ChartData resultData = processData(xScale, pixelsPerDataPoint);
+        groupedDataSize = data.rowCount();
+        return resultData;
+    }
+
     private boolean isProcessedDataOk(Scale xScale, int pixelsPerDataPoint) {
         if (processedData == null) {
             return false;
@@ -292,6 +450,7 @@ class DataManager {
 
 
     public ChartData processData(Scale argumentScale, int pixelsPerDataPoint) {
+        isProcessedDataGrouped = false;
         if (data.rowCount() <= 1) {
             return data;
         }
@@ -337,10 +496,11 @@ class DataManager {
         if(processingConfig.isGroupingEnabled()) {
             groupingInterval = findGroupingInterval(minMax, drawingAreaWidth, pixelsPerDataPoint);
         }
+        isProcessedDataGrouped = groupingInterval != null;
 
         // we do all arithmetic in long to avoid int overflow !!!
         long cropShoulder = processingConfig.getCropShoulder();
-        processedData = data;
+        ChartData processedData = data;
         boolean isAlreadyGrouped = false;
 
         if (groupingInterval != null) {
@@ -359,9 +519,14 @@ class DataManager {
         boolean isCropEnabled = processingConfig.isCropEnabled() &&  (dataMinMax.getMin() < scaleMin || dataMinMax.getMax() > scaleMax);
 
         if (processedData.rowCount() > 1 &&  isCropEnabled) {
+            // both crop edges are found in one batched search
+            cropValues[0] = scaleMin;
+            cropValues[1] = scaleMax;
+            processedData.bisect(cropValues, null, cropIndexes);
+
             long minIndex = 0;
             if (dataMinMax.getMin() < scaleMin) {
-                minIndex = processedData.bisect( scaleMin, null);
+                minIndex = cropIndexes[0];
                 if(minIndex > 0 && processedData.value((int)minIndex, ARGUMENT_COLUMN) < scaleMin) {
                     minIndex++;
                 }
@@ -370,7 +535,7 @@ class DataManager {
 
             long maxIndex = processedData.rowCount() - 1;
             if (dataMinMax.getMax() > scaleMax) {
-                maxIndex = processedData.bisect(scaleMax, null);
+                maxIndex = cropIndexes[1];
                 if(maxIndex < processedData.rowCount() - 1 && processedData.value((int)maxIndex, ARGUMENT_COLUMN) > scaleMax) {
                     maxIndex--;
                 }
@@ -416,7 +581,7 @@ class DataManager {
             if (groupedData != null && groupedData.rowCount() > 1) {
                 double groupedDataStep = getDataAvgStep(groupedData);
                 if (!isNextStepGrouping(groupedDataStep, intervalInfo.getIntervalLength()) && !isPrevStepGrouping(groupedDataStep, intervalInfo.getIntervalLength())) {
-                    if (data.rowCount() > prevDataSize) {
+                    if (data.rowCount() > groupedDataSize) {
                         groupedData.appendData();
                     }
                     return groupedData;
@@ -605,6 +770,37 @@ class DataManager {
         return (data.value(dataSize - 1, 0) - data.value(0, 0)) / (dataSize - 1);
     }
 
+    static class ProcessingRequest {
+        private final Scale scale;
+        private final int pixelsPerDataPoint;
+        private final int dataSize;
+        private final int number;
+
+        ProcessingRequest(Scale scale, int pixelsPerDataPoint, int dataSize, int number) {
+            this.scale = scale;
+            this.pixelsPerDataPoint = pixelsPerDataPoint;
+            this.dataSize = dataSize;
+            this.number = number;
+        }
+
+        boolean isSame(Scale xScale, int pixelsPerDataPoint, int dataSize) {
+            return this.pixelsPerDataPoint == pixelsPerDataPoint && this.dataSize == dataSize
+                    && scale.getClass().equals(xScale.getClass())
+                    && scale.getMin() == xScale.getMin() && scale.getMax() == xScale.getMax()
+                    && scale.getStart() == xScale.getStart() && scale.getEnd() == xScale.getEnd();
+        }
+    }
+
+    static class ProcessingResult {
+        private final ChartData data;
+        private final ProcessingRequest request;
+
+        ProcessingResult(ChartData data, ProcessingRequest request) {
+            this.data = data;
+            this.request = request;
+        }
+    }
+
     class IntervalInfo {
         private final GroupInterval interval;
         private final int intervalIndex;
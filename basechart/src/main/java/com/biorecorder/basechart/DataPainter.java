@@ -3,6 +3,7 @@ package com.biorecorder.basechart;
 import com.biorecorder.basechart.data.ChartData;
 import com.biorecorder.basechart.data.DataProcessingConfig;
 import com.biorecorder.basechart.data.GroupApproximation;
+import com.biorecorder.basechart.data.XYData;
 import com.biorecorder.basechart.graphics.*;
 import com.biorecorder.basechart.scales.Scale;
 import com.biorecorder.basechart.traces.NamedValue;
@@ -129,6 +130,10 @@ class DataPainter {
         dataManager.appendData();
     }
 
+    void setDataProcessingListener(DataProcessingListener listener) {
+        dataManager.setDataProcessingListener(listener);
+    }
+
     double getBestExtent(int drawingAreaWidth) {
         return dataManager.getBestExtent(drawingAreaWidth, tracePainter.markWidth(), tracePainter.traceType());
     }
@@ -251,6 +256,89 @@ class DataPainter {
         }
     }
 
+    /**
+     * Draws only the part of the trace that lies in the pixel columns [fromX, toX).
+     * Processed data are cropped to that range, so the painting cost
+     * is proportional to the width of the strip
+     */
+    void drawTrace(BCanvas canvas, int trace, Scale xScale, Scale yScale, int fromX, int toX) {
+        if(!tracesVisibleMask[trace]) {
+            return;
+        }
+        ChartData data = getProcessedData(xScale);
+        if(data.rowCount() > 1 && data.isIncreasing()) {
+            int markWidth = tracePainter.markWidth();
+            double[] stripMinMax = {xScale.invert(fromX - markWidth), xScale.invert(toX + markWidth)};
+            int[] stripIndexes = new int[2];
+            data.bisect(stripMinMax, null, stripIndexes);
+            // one more point on every side to keep lines continuous
+            int from = Math.max(0, stripIndexes[0] - 1);
+            int to = Math.max(from, Math.min(data.rowCount(), stripIndexes[1] + 2));
+            data = data.view(from, to - from);
+        }
+        if(data.rowCount() > 0) {
+            tracePainter.drawTrace(canvas, data, trace, getTraceColor(trace), traceCount(), isSplit, xScale, yScale);
+        }
+    }
+
+    /**
+     * When traces are drawn in parallel the processed data are prepared
+     * beforehand in the calling thread and copied to plain arrays,
+     * so the tiles drawn by {@link #drawTraceData(BCanvas, ChartData, int, Scale, Scale)}
+     * read neither the raw data nor the lazy columns of the processed data.
+     * The copy costs O(rows * columns) of the processed (cropped and grouped) data per frame.
+     *
+     * @return null if there is no data to draw
+     */
+    @Nullable
+    ChartData getDrawingData(Scale xScale) {
+        ChartData data = getProcessedData(xScale);
+        int rowCount = data.rowCount();
+        if(rowCount == 0) {
+            return null;
+        }
+        XYData drawingData = new XYData(columnToArray(data, 0));
+        drawingData.setColumnName(0, data.getColumnName(0));
+        for (int i = 1; i < data.columnCount(); i++) {
+            drawingData.addYColumn(data.getColumnName(i), columnToArray(data, i));
+        }
+        return drawingData;
+    }
+
+    private static double[] columnToArray(ChartData data, int columnNumber) {
+        double[] values = new double[data.rowCount()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = data.value(i, columnNumber);
+        }
+        return values;
+    }
+
+    boolean isTraceVisible(int trace) {
+        return tracesVisibleMask[trace];
+    }
+
+    /**
+     * Vertical pixel range of the trace points drawn from the given data (marks included)
+     */
+    @Nullable
+    Range traceYPixelRange(ChartData drawingData, int trace, Scale yScale) {
+        Range yMinMax = tracePainter.traceYMinMax(drawingData, trace);
+        if(yMinMax == null) {
+            return null;
+        }
+        double y1 = yScale.scale(yMinMax.getMin());
+        double y2 = yScale.scale(yMinMax.getMax());
+        if(Double.isNaN(y1) || Double.isNaN(y2) || Double.isInfinite(y1) || Double.isInfinite(y2)) {
+            return null;
+        }
+        int markRadius = tracePainter.markWidth() / 2;
+        return new Range(Math.floor(Math.min(y1, y2)) - markRadius, Math.ceil(Math.max(y1, y2)) + markRadius);
+    }
+
+    void drawTraceData(BCanvas canvas, ChartData drawingData, int trace, Scale xScale, Scale yScale) {
+        tracePainter.drawTrace(canvas, drawingData, trace, getTraceColor(trace), traceCount(), isSplit, xScale, yScale);
+    }
+
     private ChartData getProcessedData(Scale xScale) {
         if(tracePainter.traceType() == TraceType.SCATTER) {
             dataManager.getData();
@@ -0,0 +1,9 @@
+package com.biorecorder.basechart;
+
+/**
+ * Is notified (on a worker thread) when asynchronously processed data are ready
+ * and the chart should be redrawn
+ */
+public interface DataProcessingListener {
+    public void onDataProcessed();
+}
@@ -174,6 +174,36 @@ public class InteractiveChart implements InteractiveDrawable {
 
     }
 
+    @Override
+    public Object getStaticLayerKey(BCanvas canvas) {
+        return chart.getStaticLayerKey();
+    }
+
+    @Override
+    public void drawStaticLayer(BCanvas canvas) {
+        chart.drawStaticLayer(canvas);
+    }
+
+    @Override
+    public ScrollableLayer getScrollableLayer(BCanvas canvas) {
+        return chart.getScrollableLayer();
+    }
+
+    @Override
+    public void drawScrolledStaticLayer(BCanvas canvas, int fromX) {
+        chart.drawScrolledStaticLayer(canvas, fromX);
+    }
+
+    @Override
+    public void drawOverlayLayer(BCanvas canvas) {
+        chart.drawOverlayLayer(canvas);
+    }
+
+    @Override
+    public void addDataProcessingListener(DataProcessingListener listener) {
+        chart.addDataProcessingListener(listener);
+    }
+
     @Override
     public boolean update() {
        return false;
@@ -32,4 +32,28 @@ public interface InteractiveDrawable {
     public boolean update();
 
     public void draw(BCanvas canvas);
+
+    /**
+     * Layered drawing: draw(canvas) = drawStaticLayer(canvas) + drawOverlayLayer(canvas).
+     * The static layer may be cached and redrawn only when its key changes
+     * (key objects are compared by equals)
+     */
+    public Object getStaticLayerKey(BCanvas canvas);
+
+    public void drawStaticLayer(BCanvas canvas);
+
+    /**
+     * Incremental repaint of the scrolled static layer (see {@link ScrollableLayer})
+     */
+    @Nullable
+    public ScrollableLayer getScrollableLayer(BCanvas canvas);
+
+    public void drawScrolledStaticLayer(BCanvas canvas, int fromX);
+
+    public void drawOverlayLayer(BCanvas canvas);
+
+    /**
+     * @see Chart#addDataProcessingListener(DataProcessingListener)
+     */
+    public void addDataProcessingListener(DataProcessingListener listener);
 }
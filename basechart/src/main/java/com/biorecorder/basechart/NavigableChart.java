@@ -419,6 +419,93 @@ public class NavigableChart {
      * ==================================================*/
 
     public void draw(BCanvas canvas) {
+        drawStaticLayer(canvas);
+        drawOverlayLayer(canvas);
+    }
+
+    /**
+     * @see Chart#getStaticLayerKey()
+     */
+    public Object getStaticLayerKey(BCanvas canvas) {
+        validate(canvas);
+        List<Object> key = new ArrayList<>();
+        key.add(fullArea.x);
+        key.add(fullArea.y);
+        key.add(fullArea.width);
+        key.add(fullArea.height);
+        key.add(chart.getStaticLayerKey());
+        key.add(navigator.getStaticLayerKey());
+        for (XAxisPosition xPosition : XAxisPosition.values()) {
+            Scroll scroll = scrolls.get(xPosition);
+            if (scroll != null) {
+                key.add(xPosition);
+                key.add(scroll.getValue());
+                key.add(scroll.getExtent());
+            }
+        }
+        return key;
+    }
+
+    public void drawOverlayLayer(BCanvas canvas) {
+        navigator.drawOverlayLayer(canvas);
+        chart.drawOverlayLayer(canvas);
+    }
+
+    /**
+     * Only the main chart graph area is scrolled. The navigator
+     * (that shows the whole data) is always redrawn
+     *
+     * @see Chart#getScrollableLayer()
+     */
+    @Nullable
+    public ScrollableLayer getScrollableLayer(BCanvas canvas) {
+        validate(canvas);
+        return chart.getScrollableLayer();
+    }
+
+    public void drawStaticLayer(BCanvas canvas) {
+        validate(canvas);
+        canvas.setColor(config.getBackgroundColor());
+        canvas.fillRect(fullArea.x, fullArea.y, fullArea.width, fullArea.height);
+        navigator.drawStaticLayer(canvas);
+        chart.drawStaticLayer(canvas);
+        drawScrollsAndDisableAutoscale(canvas);
+    }
+
+    /**
+     * @see Chart#drawScrolledStaticLayer(BCanvas, int)
+     */
+    public void drawScrolledStaticLayer(BCanvas canvas, int fromX) {
+        ScrollableLayer chartLayer = getScrollableLayer(canvas);
+        if (chartLayer == null) {
+            drawStaticLayer(canvas);
+            return;
+        }
+        canvas.setColor(config.getBackgroundColor());
+        canvas.fillRect(fullArea.x, fullArea.y, fullArea.width, fullArea.height);
+        navigator.drawStaticLayer(canvas);
+        chart.drawScrolledStaticLayer(canvas, fromX);
+        drawScrollsAndDisableAutoscale(canvas);
+    }
+
+    private void drawScrollsAndDisableAutoscale(BCanvas canvas) {
+        for (XAxisPosition key : scrolls.keySet()) {
+            drawScroll(canvas, scrolls.get(key));
+        }
+        if (isChartAutoscaleNeedDisable) {
+            for (int stack = 0; stack < chart.stackCount(); stack++) {
+                YAxisPosition[] yAxisPositions = chart.getYAxes(stack);
+                for (int i = 0; i < yAxisPositions.length; i++) {
+                    YAxisPosition yAxisPosition = yAxisPositions[i];
+                    Range minMax = chart.getYMinMax(stack, yAxisPosition, canvas);
+                    chart.setYMinMax(stack, yAxisPosition, minMax.getMin(), minMax.getMax());
+                }
+            }
+            isChartAutoscaleNeedDisable = false;
+        }
+    }
+
+    private void validate(BCanvas canvas) {
         if (fullArea == null) {
             setArea(canvas.getBounds());
         }
@@ -453,25 +540,6 @@ public class NavigableChart {
             }
         }
         scrollsToAutoscale.clear();
-
-        canvas.setColor(config.getBackgroundColor());
-        canvas.fillRect(fullArea.x, fullArea.y, fullArea.width, fullArea.height);
-        navigator.draw(canvas);
-        chart.draw(canvas);
-        for (XAxisPosition key : scrolls.keySet()) {
-            drawScroll(canvas, scrolls.get(key));
-        }
-        if (isChartAutoscaleNeedDisable) {
-            for (int stack = 0; stack < chart.stackCount(); stack++) {
-                YAxisPosition[] yAxisPositions = chart.getYAxes(stack);
-                for (int i = 0; i < yAxisPositions.length; i++) {
-                    YAxisPosition yAxisPosition = yAxisPositions[i];
-                    Range minMax = chart.getYMinMax(stack, yAxisPosition, canvas);
-                    chart.setYMinMax(stack, yAxisPosition, minMax.getMin(), minMax.getMax());
-                }
-            }
-            isChartAutoscaleNeedDisable = false;
-        }
     }
 
     /**
@@ -501,6 +569,11 @@ public class NavigableChart {
         }
     }
 
+    public void addDataProcessingListener(DataProcessingListener listener) {
+        chart.addDataProcessingListener(listener);
+        navigator.addDataProcessingListener(listener);
+    }
+
     public void appendData() {
         isScrollsDirty = true;
         chart.appendData();
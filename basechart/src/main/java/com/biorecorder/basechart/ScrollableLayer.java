@@ -0,0 +1,71 @@
+package com.biorecorder.basechart;
+
+import com.biorecorder.basechart.graphics.BRectangle;
+
+/**
+ * Describes the part of the static layer that moves as a whole when
+ * the chart is scrolled along the x axis (graph area with traces and grids).
+ * If two successive states are shifts of each other the cached image
+ * of the area may be just moved and only the newly exposed strip redrawn.
+ */
+public class ScrollableLayer {
+    private final BRectangle area;
+    private final double xMin;
+    private final double pixelsPerUnit;
+    private final int dataEnd;
+    private final Object key;
+
+    /**
+     * @param area          area that is shifted when the chart is scrolled
+     * @param xMin          minimum of the x axis
+     * @param pixelsPerUnit x axis scale factor
+     * @param dataEnd       x coordinate of the last data point
+     * @param key           state of everything else that the static layer depends on
+     */
+    public ScrollableLayer(BRectangle area, double xMin, double pixelsPerUnit, int dataEnd, Object key) {
+        this.area = area;
+        this.xMin = xMin;
+        this.pixelsPerUnit = pixelsPerUnit;
+        this.dataEnd = dataEnd;
+        this.key = key;
+    }
+
+    public BRectangle getArea() {
+        return area;
+    }
+
+    public double getXMin() {
+        return xMin;
+    }
+
+    public int getDataEnd() {
+        return dataEnd;
+    }
+
+    /**
+     * @return shift in pixels of the content drawn for the given x axis minimum
+     * when it is shown in this layer (negative when this layer is scrolled forward)
+     */
+    public double getShift(double xMin) {
+        return (xMin - this.xMin) * pixelsPerUnit;
+    }
+
+    /**
+     * @return x axis minimum of the content that is shifted by the given number of pixels
+     * in this layer. Inverse of {@link #getShift(double)}
+     */
+    public double getShiftedXMin(double shift) {
+        return xMin + shift / pixelsPerUnit;
+    }
+
+    /**
+     * @return true if the given layer differs from this one only by the scroll position
+     */
+    public boolean isShiftOf(ScrollableLayer layer) {
+        if (!area.equals(layer.area) || !key.equals(layer.key)) {
+            return false;
+        }
+        // scale factors may differ in the last bits after translation
+        return Math.abs(pixelsPerUnit - layer.pixelsPerUnit) <= Math.abs(pixelsPerUnit) * 1.0E-9;
+    }
+}
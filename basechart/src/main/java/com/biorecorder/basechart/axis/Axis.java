@@ -33,6 +33,7 @@ public class Axis {
     private BText titleText;
     private boolean isDirty = true;
     private int widthOut;
+    private final TickLabelCache labelCache = new TickLabelCache();
 
     public Axis(Scale scale, AxisConfig axisConfig, XAxisPosition xAxisPosition) {
         this.scale = scale.copy();
@@ -362,10 +363,10 @@ public class Axis {
 
         List<Tick> ticks = new ArrayList<>();
         if (tickCount >= 2) {
-            ticks.add(tickMin);
-            ticks.add(tickMinNext);
+            ticks.add(labelCache.withCachedLabel(tickMin));
+            ticks.add(labelCache.withCachedLabel(tickMinNext));
             for (int i = 2; i < tickCount; i++) {
-                ticks.add(tickProvider.getNextTick());
+                ticks.add(labelCache.withCachedLabel(tickProvider.getNextTick()));
             }
         }
         return ticks;
@@ -494,7 +495,7 @@ public class Axis {
         tickPositions = new IntArrayList();
         minorTickPositions = new IntArrayList();
         tickLabels = new ArrayList<>();
-        TextMetric labelTM = renderContext.getTextMetric(config.getTickLabelTextStyle());
+        TextMetric labelTM = labelCache.getTextMetric(renderContext, config.getTickLabelTextStyle());
         List<Tick> ticks = createValidTicks(labelTM);
 
         widthOut = config.getAxisLineWidth() / 2;
@@ -0,0 +1,106 @@
+package com.biorecorder.basechart.axis;
+
+import com.biorecorder.basechart.graphics.RenderContext;
+import com.biorecorder.basechart.graphics.TextMetric;
+import com.biorecorder.basechart.graphics.TextStyle;
+import com.biorecorder.basechart.scales.Tick;
+import com.biorecorder.basechart.scales.TickFormatter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tick labels and their widths kept between axis updates.
+ * When the axis is scrolled or its data are appended most of the ticks
+ * stay the same, so only the labels of the new ticks are formatted and measured.
+ * Labels are cached by tick value while the ticks formatter stays equal,
+ * widths - while the labels text style stays the same and the render context stays equal.
+ */
+class TickLabelCache {
+    // ticks are not more then Axis.MAX_TICKS_COUNT so normally it is never reached
+    private static final int MAX_SIZE = 2000;
+
+    private TickFormatter formatter;
+    private final Map<Double, String> labels = new HashMap<>();
+    private RenderContext renderContext;
+    private String textStyleKey;
+    private CachedTextMetric textMetric;
+
+    TextMetric getTextMetric(RenderContext renderContext, TextStyle textStyle) {
+        String key = textStyle.getFontName() + " " + textStyle.isBold() + " "
+                + textStyle.isItalic() + " " + textStyle.getSize();
+        if (textMetric == null || !renderContext.equals(this.renderContext) || !key.equals(textStyleKey)) {
+            textMetric = new CachedTextMetric(renderContext.getTextMetric(textStyle));
+            this.renderContext = renderContext;
+            textStyleKey = key;
+        }
+        return textMetric;
+    }
+
+    /**
+     * @return tick with the cached label if the given tick has an equal formatter
+     * and the same value as some previous one
+     */
+    Tick withCachedLabel(Tick tick) {
+        TickFormatter tickFormatter = tick.getFormatter();
+        if (tickFormatter == null) {
+            return tick;
+        }
+        if (!tickFormatter.equals(formatter)) {
+            labels.clear();
+            formatter = tickFormatter;
+        }
+        String label = labels.get(tick.getValue());
+        if (label == null) {
+            if (labels.size() >= MAX_SIZE) {
+                labels.clear();
+            }
+            label = tick.getLabel();
+            labels.put(tick.getValue(), label);
+        }
+        return new Tick(tick.getValue(), label);
+    }
+
+    static class CachedTextMetric implements TextMetric {
+        private final TextMetric textMetric;
+        private final int ascent;
+        private final int descent;
+        private final int height;
+        private final Map<String, Integer> widths = new HashMap<>();
+
+        CachedTextMetric(TextMetric textMetric) {
+            this.textMetric = textMetric;
+            ascent = textMetric.ascent();
+            descent = textMetric.descent();
+            height = textMetric.height();
+        }
+
+        @Override
+        public int ascent() {
+            return ascent;
+        }
+
+        @Override
+        public int descent() {
+            return descent;
+        }
+
+        @Override
+        public int height() {
+            return height;
+        }
+
+        @Override
+        public int stringWidth(String str) {
+            Integer width = widths.get(str);
+            if (width == null) {
+                if (widths.size() >= MAX_SIZE) {
+                    widths.clear();
+                }
+                width = textMetric.stringWidth(str);
+                widths.put(str, width);
+            }
+            return width;
+        }
+    }
+}
@@ -31,6 +31,8 @@ public interface ChartData {
 
     int bisect( double value, int[] sorter);
 
+    void bisect(double[] sortedValues, int[] sorter, int[] resultIndexes);
+
     ChartData view(int fromRowNumber, int length);
 
     ChartData view(int fromRowNumber);
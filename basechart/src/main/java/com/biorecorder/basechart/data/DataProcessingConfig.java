@@ -38,6 +38,11 @@ public class DataProcessingConfig {
     // for all specified intervals
     private boolean isSavingGroupedDataEnabled = false;
 
+    // if true then data are processed (cropped and grouped) by worker threads
+    // and until the new processed data are ready the previous ones are drawn.
+    // Data must be safe to read from several threads (array based data are)
+    private boolean isAsyncProcessingEnabled = false;
+
     public DataProcessingConfig() {
     }
 
@@ -56,6 +61,7 @@ public class DataProcessingConfig {
         isGroupAll = config.isGroupAll;
         isSavingGroupedDataEnabled = config.isSavingGroupedDataEnabled;
         isCroppedDataCachingEnabled = config.isCroppedDataCachingEnabled;
+        isAsyncProcessingEnabled = config.isAsyncProcessingEnabled;
         if(config.groupingIntervals != null) {
             groupingIntervals = Arrays.copyOf(config.groupingIntervals, config.groupingIntervals.length);
         }
@@ -69,6 +75,14 @@ public class DataProcessingConfig {
         isSavingGroupedDataEnabled = savingGroupedDataEnabled;
     }
 
+    public boolean isAsyncProcessingEnabled() {
+        return isAsyncProcessingEnabled;
+    }
+
+    public void setAsyncProcessingEnabled(boolean asyncProcessingEnabled) {
+        isAsyncProcessingEnabled = asyncProcessingEnabled;
+    }
+
     public boolean isCroppedDataCachingEnabled() {
         return isCroppedDataCachingEnabled;
     }
@@ -5,6 +5,7 @@ package com.biorecorder.basechart.data;
  */
 public enum GroupApproximation {
     AVERAGE,
+    MEDIAN,
     SUM,
     OPEN,
     CLOSE,
@@ -148,6 +148,8 @@ public class XYData implements ChartData {
                         return GroupApproximation.HIGH;
                     case AVERAGE:
                         return GroupApproximation.AVERAGE;
+                    case MEDIAN:
+                        return GroupApproximation.MEDIAN;
                     case SUM:
                         return GroupApproximation.SUM;
                 }
@@ -198,6 +200,10 @@ public class XYData implements ChartData {
                 Aggregation[] aggregations = {Aggregation.AVERAGE};
                 return aggregations;
             }
+            case MEDIAN: {
+                Aggregation[] aggregations = {Aggregation.MEDIAN};
+                return aggregations;
+            }
             case HIGH: {
                 Aggregation[] aggregations = {Aggregation.MAX};
                 return aggregations;
@@ -224,6 +230,10 @@ public class XYData implements ChartData {
     @Override
     public void setColumnGroupApproximation(int columnNumber, GroupApproximation groupApproximation) {
         dataFrame.setColumnAggFunctions(columnNumber, aproximationToAggregations(groupApproximation));
+        if (groupApproximation == GroupApproximation.AVERAGE || groupApproximation == GroupApproximation.SUM) {
+            // groups (of the data and its views) are then averaged in O(1) whatever their size
+            dataFrame.enablePrefixSums(columnNumber);
+        }
     }
 
     @Override
@@ -299,6 +309,11 @@ public class XYData implements ChartData {
         return dataFrame.bisect(0, value, sorter);
     }
 
+    @Override
+    public void bisect(double[] sortedValues, int[] sorter, int[] resultIndexes) {
+        dataFrame.bisect(0, sortedValues, sorter, resultIndexes);
+    }
+
     @Override
     public ChartData slice(int fromRowNumber, int length) {
         return new XYData(dataFrame.slice(fromRowNumber, length));
@@ -30,7 +30,44 @@ public interface BCanvas {
     public void fillOval(int x, int y, int width, int height);
     public void drawPoint(int x, int y);
     public void drawPath(BPath path);
+
+    /**
+     * Fast path to draw long lines (traces) given by primitive coordinate arrays.
+     * Only the first n points are drawn
+     */
+    public void drawPolyline(int[] xs, int[] ys, int n);
+    public void fillPolygon(int[] xs, int[] ys, int n);
+
+    /**
+     * Batched drawing of many primitives of the current color and stroke.
+     * Line segments: (xs[2i], ys[2i]) - (xs[2i + 1], ys[2i + 1]) for 2i + 1 &lt; n
+     */
+    public void drawLines(int[] xs, int[] ys, int n);
+
+    /**
+     * Fills n rectangles of the same size whose top left corners are (xs[i], ys[i])
+     */
+    public void fillRects(int[] xs, int[] ys, int n, int width, int height);
+
+    /**
+     * Fills n ovals (markers) of the same size whose bounding rectangles
+     * have top left corners (xs[i], ys[i])
+     */
+    public void fillOvals(int[] xs, int[] ys, int n, int width, int height);
     public void fillPath(BPath path);
     public BPath getEmptyPath();
 
+    /**
+     * Creates a transparent offscreen canvas (tile) with the same rendering settings.
+     * A tile may be drawn in any thread and then composited
+     * on this canvas by {@link #drawCanvas(BCanvas, int, int)}
+     */
+    public BCanvas createCompatibleCanvas(int width, int height);
+
+    /**
+     * Draws the tile created by {@link #createCompatibleCanvas(int, int)}
+     * with its top left corner at (x, y)
+     */
+    public void drawCanvas(BCanvas canvas, int x, int y);
+
 }
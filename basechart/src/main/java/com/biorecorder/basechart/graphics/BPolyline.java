@@ -0,0 +1,59 @@
+package com.biorecorder.basechart.graphics;
+
+/**
+ * Reusable buffer of polyline points.
+ * Coordinate arrays are kept when the buffer is cleared and grow only
+ * when more points are needed, so a polyline filled again on every frame
+ * allocates nothing in a steady state.
+ */
+public class BPolyline {
+    private int[] xs;
+    private int[] ys;
+    private int size;
+
+    public BPolyline() {
+        this(64);
+    }
+
+    public BPolyline(int capacity) {
+        xs = new int[Math.max(2, capacity)];
+        ys = new int[xs.length];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void add(int x, int y) {
+        if (size == xs.length) {
+            int newCapacity = xs.length * 2;
+            int[] newXs = new int[newCapacity];
+            int[] newYs = new int[newCapacity];
+            System.arraycopy(xs, 0, newXs, 0, size);
+            System.arraycopy(ys, 0, newYs, 0, size);
+            xs = newXs;
+            ys = newYs;
+        }
+        xs[size] = x;
+        ys[size] = y;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return x coordinates. Only the first {@link #size()} elements are valid
+     */
+    public int[] getXs() {
+        return xs;
+    }
+
+    /**
+     * @return y coordinates. Only the first {@link #size()} elements are valid
+     */
+    public int[] getYs() {
+        return ys;
+    }
+}
@@ -74,6 +74,20 @@ public class BRectangle {
         return (h < y || h > Y);
     }
 
+    /**
+     * @return intersection of the rectangles or null if they do not intersect
+     */
+    public static BRectangle intersect(BRectangle r1, BRectangle r2) {
+        int x1 = Math.max(r1.x, r2.x);
+        int y1 = Math.max(r1.y, r2.y);
+        int x2 = Math.min(r1.x + r1.width, r2.x + r2.width);
+        int y2 = Math.min(r1.y + r1.height, r2.y + r2.height);
+        if (x2 <= x1 || y2 <= y1) {
+            return null;
+        }
+        return new BRectangle(x1, y1, x2 - x1, y2 - y1);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof BRectangle) {
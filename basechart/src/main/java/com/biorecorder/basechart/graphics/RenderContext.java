@@ -1,5 +1,10 @@
 package com.biorecorder.basechart.graphics;
 
+/**
+ * Render contexts giving the same text metrics must be equal
+ * (override equals and hashCode) so that metrics and text widths
+ * may be cached between updates
+ */
 public interface RenderContext {
     TextMetric getTextMetric(TextStyle textStyle);
 }
@@ -0,0 +1,899 @@
+package com.biorecorder.basechart.raster;
+
+import com.biorecorder.basechart.graphics.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pure raster implementation of BCanvas that draws into an int[] buffer
+ * of ARGB pixels (not premultiplied, row by row).
+ * <p>
+ * It does not use Graphics2D, so charts may be rendered on servers
+ * (java.awt.headless) and every thread may render its own charts without any shared locks.
+ * Lines are drawn by the Bresenham algorithm, shapes are filled by scanlines
+ * (pixel is filled if its center is inside the shape). Shapes are not antialiased,
+ * text is drawn from the antialiased glyph masks of {@link RasterFont}.
+ * Any affine transform (translation and rotation) is supported.
+ */
+public class RasterCanvas implements BCanvas {
+    private static final TextStyle DEFAULT_TEXT_STYLE = new TextStyle(TextStyle.DEFAULT, TextStyle.NORMAL, 12);
+    private static final int MAX_OVAL_SEGMENTS = 256;
+    // lines are clipped a bit outside the clip not to change their visible pixels
+    private static final int CLIP_MARGIN = 2;
+
+    private final int[] pixels;
+    private final int width;
+    private final int height;
+
+    // user to device transform: x' = m00 * x + m01 * y + m02, y' = m10 * x + m11 * y + m12
+    private double m00 = 1;
+    private double m01;
+    private double m02;
+    private double m10;
+    private double m11 = 1;
+    private double m12;
+    // device clip: [clipX0, clipX1) x [clipY0, clipY1)
+    private int clipX0;
+    private int clipY0;
+    private int clipX1;
+    private int clipY1;
+    private final List<double[]> savedStates = new ArrayList<>();
+
+    private int color = 0xFF000000;
+    private int strokeWidth = 1;
+    private float[] dash;
+    private float dashPhase;
+    // position in the dash pattern of the currently stroked line
+    private float dashPosition;
+    private RasterFont font;
+
+    // reusable buffers of the scanline filling
+    private float[] edges = new float[64];
+    private int edgeCount;
+    private float[] crossings = new float[16];
+    private int[] windings = new int[16];
+    private final int[] rectXs = new int[5];
+    private final int[] rectYs = new int[5];
+    private final double[] segmentClip = new double[2];
+
+    public RasterCanvas(int width, int height) {
+        this(new int[width * height], width, height);
+    }
+
+    public RasterCanvas(int[] pixels, int width, int height) {
+        if (pixels.length < width * height) {
+            String errMsg = "Pixels buffer size: " + pixels.length + " Expected >= " + width * height;
+            throw new IllegalArgumentException(errMsg);
+        }
+        this.pixels = pixels;
+        this.width = width;
+        this.height = height;
+        clipX1 = width;
+        clipY1 = height;
+    }
+
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public void translate(int dx, int dy) {
+        m02 += m00 * dx + m01 * dy;
+        m12 += m10 * dx + m11 * dy;
+    }
+
+    @Override
+    public void rotate(float degree) {
+        double radians = Math.toRadians(degree);
+        double cos = snap(Math.cos(radians));
+        double sin = snap(Math.sin(radians));
+        double n00 = m00 * cos + m01 * sin;
+        double n01 = -m00 * sin + m01 * cos;
+        double n10 = m10 * cos + m11 * sin;
+        double n11 = -m10 * sin + m11 * cos;
+        m00 = n00;
+        m01 = n01;
+        m10 = n10;
+        m11 = n11;
+    }
+
+    @Override
+    public void rotate(float degree, int pivotX, int pivotY) {
+        translate(pivotX, pivotY);
+        rotate(degree);
+        translate(-pivotX, -pivotY);
+    }
+
+    /**
+     * Rotations by multiples of 90 degrees should give exact integer transforms
+     */
+    private static double snap(double value) {
+        double rounded = Math.rint(value);
+        if (Math.abs(value - rounded) < 1.0E-12) {
+            return rounded;
+        }
+        return value;
+    }
+
+    @Override
+    public void save() {
+        savedStates.add(new double[]{m00, m01, m02, m10, m11, m12, clipX0, clipY0, clipX1, clipY1});
+    }
+
+    @Override
+    public void restore() {
+        int last = savedStates.size() - 1;
+        if (last >= 0) {
+            double[] state = savedStates.remove(last);
+            m00 = state[0];
+            m01 = state[1];
+            m02 = state[2];
+            m10 = state[3];
+            m11 = state[4];
+            m12 = state[5];
+            clipX0 = (int) state[6];
+            clipY0 = (int) state[7];
+            clipX1 = (int) state[8];
+            clipY1 = (int) state[9];
+        }
+    }
+
+    /**
+     * Shapes are never antialiased and text always is
+     */
+    @Override
+    public void enableAntiAliasAndHinting() {
+        // do nothing
+    }
+
+    @Override
+    public RenderContext getRenderContext() {
+        return new RasterRenderContext();
+    }
+
+    @Override
+    public void setColor(BColor color) {
+        this.color = color.getAlpha() << 24 | color.getRed() << 16 | color.getGreen() << 8 | color.getBlue();
+    }
+
+    @Override
+    public void setStroke(int width, DashStyle dashStyle) {
+        strokeWidth = Math.max(1, width);
+        // the same patterns as in SwingCanvas
+        switch (dashStyle) {
+            case DOT:
+                setDash(new float[]{1f, 3f});
+                break;
+            case DASH_DOT:
+                setDash(new float[]{4f, 4f, 1f});
+                break;
+            case DASH_LONG:
+                setDash(new float[]{4f, 0f, 2f});
+                break;
+            case DASH_SHORT:
+                setDash(new float[]{2f, 0f, 2f});
+                break;
+            default:
+                dash = null;
+        }
+    }
+
+    private void setDash(float[] pattern) {
+        if (pattern.length % 2 == 1) {
+            // odd pattern is repeated to get the pairs of "on" and "off" lengths
+            float[] doubledPattern = new float[pattern.length * 2];
+            System.arraycopy(pattern, 0, doubledPattern, 0, pattern.length);
+            System.arraycopy(pattern, 0, doubledPattern, pattern.length, pattern.length);
+            pattern = doubledPattern;
+        }
+        dash = pattern;
+        dashPhase = 2f;
+    }
+
+    @Override
+    public void setTextStyle(TextStyle textStyle) {
+        font = RasterFont.getFont(textStyle);
+    }
+
+    @Override
+    public void setClip(int x, int y, int width, int height) {
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int cornerX = (i == 1 || i == 2) ? x + width : x;
+            int cornerY = i >= 2 ? y + height : y;
+            double deviceX = deviceX(cornerX, cornerY);
+            double deviceY = deviceY(cornerX, cornerY);
+            minX = Math.min(minX, deviceX);
+            minY = Math.min(minY, deviceY);
+            maxX = Math.max(maxX, deviceX);
+            maxY = Math.max(maxY, deviceY);
+        }
+        clipX0 = Math.max(0, (int) Math.round(minX));
+        clipY0 = Math.max(0, (int) Math.round(minY));
+        clipX1 = Math.max(clipX0, Math.min(this.width, (int) Math.round(maxX)));
+        clipY1 = Math.max(clipY0, Math.min(this.height, (int) Math.round(maxY)));
+    }
+
+    @Override
+    public BRectangle getBounds() {
+        double det = m00 * m11 - m01 * m10;
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            double dx = ((i == 1 || i == 2) ? clipX1 : clipX0) - m02;
+            double dy = (i >= 2 ? clipY1 : clipY0) - m12;
+            double userX = (m11 * dx - m01 * dy) / det;
+            double userY = (-m10 * dx + m00 * dy) / det;
+            minX = Math.min(minX, userX);
+            minY = Math.min(minY, userY);
+            maxX = Math.max(maxX, userX);
+            maxY = Math.max(maxY, userY);
+        }
+        int x = (int) Math.round(minX);
+        int y = (int) Math.round(minY);
+        return new BRectangle(x, y, (int) Math.round(maxX) - x, (int) Math.round(maxY) - y);
+    }
+
+    private double deviceX(double x, double y) {
+        return m00 * x + m01 * y + m02;
+    }
+
+    private double deviceY(double x, double y) {
+        return m10 * x + m11 * y + m12;
+    }
+
+    private boolean isTranslation() {
+        return m00 == 1 && m01 == 0 && m10 == 0 && m11 == 1
+                && m02 == Math.rint(m02) && m12 == Math.rint(m12);
+    }
+
+    @Override
+    public void drawString(String str, int x, int y) {
+        if (font == null) {
+            font = RasterFont.getFont(DEFAULT_TEXT_STYLE);
+        }
+        int colorAlpha = color >>> 24;
+        boolean isTranslation = isTranslation();
+        int penX = x;
+        for (int i = 0; i < str.length(); i++) {
+            RasterFont.Glyph glyph = font.getGlyph(str.charAt(i));
+            if (glyph.width > 0) {
+                if (isTranslation) {
+                    drawGlyph(glyph, penX + glyph.left + (int) m02, y + glyph.top + (int) m12, colorAlpha);
+                } else {
+                    drawTransformedGlyph(glyph, penX + glyph.left, y + glyph.top, colorAlpha);
+                }
+            }
+            penX += glyph.advance;
+        }
+    }
+
+    private void drawGlyph(RasterFont.Glyph glyph, int deviceX, int deviceY, int colorAlpha) {
+        int fromX = Math.max(clipX0, deviceX);
+        int toX = Math.min(clipX1, deviceX + glyph.width);
+        int fromY = Math.max(clipY0, deviceY);
+        int toY = Math.min(clipY1, deviceY + glyph.height);
+        for (int py = fromY; py < toY; py++) {
+            int maskRow = (py - deviceY) * glyph.width - deviceX;
+            for (int px = fromX; px < toX; px++) {
+                int coverage = glyph.coverage[maskRow + px] & 0xFF;
+                if (coverage != 0) {
+                    blend(px, py, colorAlpha * coverage / 255);
+                }
+            }
+        }
+    }
+
+    /**
+     * Every device pixel of the glyph bounding box is mapped back to the glyph mask
+     */
+    private void drawTransformedGlyph(RasterFont.Glyph glyph, int glyphX, int glyphY, int colorAlpha) {
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int cornerX = (i == 1 || i == 2) ? glyphX + glyph.width : glyphX;
+            int cornerY = i >= 2 ? glyphY + glyph.height : glyphY;
+            minX = Math.min(minX, deviceX(cornerX, cornerY));
+            minY = Math.min(minY, deviceY(cornerX, cornerY));
+            maxX = Math.max(maxX, deviceX(cornerX, cornerY));
+            maxY = Math.max(maxY, deviceY(cornerX, cornerY));
+        }
+        int fromX = Math.max(clipX0, (int) Math.floor(minX));
+        int toX = Math.min(clipX1, (int) Math.ceil(maxX));
+        int fromY = Math.max(clipY0, (int) Math.floor(minY));
+        int toY = Math.min(clipY1, (int) Math.ceil(maxY));
+        double det = m00 * m11 - m01 * m10;
+        for (int py = fromY; py < toY; py++) {
+            for (int px = fromX; px < toX; px++) {
+                double dx = px + 0.5 - m02;
+                double dy = py + 0.5 - m12;
+                int maskX = (int) Math.floor((m11 * dx - m01 * dy) / det) - glyphX;
+                int maskY = (int) Math.floor((-m10 * dx + m00 * dy) / det) - glyphY;
+                if (maskX >= 0 && maskX < glyph.width && maskY >= 0 && maskY < glyph.height) {
+                    int coverage = glyph.coverage[maskY * glyph.width + maskX] & 0xFF;
+                    if (coverage != 0) {
+                        blend(px, py, colorAlpha * coverage / 255);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        dashPosition = dashPhase;
+        strokeSegment(deviceX(x1, y1), deviceY(x1, y1), deviceX(x2, y2), deviceY(x2, y2), false);
+    }
+
+    @Override
+    public void drawLine(BLine line) {
+        drawLine(line.x1, line.y1, line.x2, line.y2);
+    }
+
+    @Override
+    public void drawRect(int x, int y, int width, int height) {
+        rectXs[0] = x;
+        rectYs[0] = y;
+        rectXs[1] = x + width;
+        rectYs[1] = y;
+        rectXs[2] = x + width;
+        rectYs[2] = y + height;
+        rectXs[3] = x;
+        rectYs[3] = y + height;
+        rectXs[4] = x;
+        rectYs[4] = y;
+        drawPolyline(rectXs, rectYs, 5);
+    }
+
+    @Override
+    public void drawRect(BRectangle rectangle) {
+        drawRect(rectangle.x, rectangle.y, rectangle.width, rectangle.height);
+    }
+
+    @Override
+    public void fillRect(int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        if (isTranslation()) {
+            int deviceX = x + (int) m02;
+            int deviceY = y + (int) m12;
+            int toY = Math.min(clipY1, deviceY + height);
+            for (int py = Math.max(clipY0, deviceY); py < toY; py++) {
+                fillSpan(py, deviceX, deviceX + width);
+            }
+        } else {
+            rectXs[0] = x;
+            rectYs[0] = y;
+            rectXs[1] = x + width;
+            rectYs[1] = y;
+            rectXs[2] = x + width;
+            rectYs[2] = y + height;
+            rectXs[3] = x;
+            rectYs[3] = y + height;
+            fillPolygon(rectXs, rectYs, 4);
+        }
+    }
+
+    @Override
+    public void drawOval(int x, int y, int width, int height) {
+        int segments = ovalSegments(width, height);
+        double cx = x + width / 2.0;
+        double cy = y + height / 2.0;
+        double prevX = deviceX(cx + width / 2.0, cy);
+        double prevY = deviceY(cx + width / 2.0, cy);
+        dashPosition = dashPhase;
+        for (int i = 1; i <= segments; i++) {
+            double angle = 2 * Math.PI * i / segments;
+            double ux = cx + Math.cos(angle) * width / 2;
+            double uy = cy + Math.sin(angle) * height / 2;
+            double nextX = deviceX(ux, uy);
+            double nextY = deviceY(ux, uy);
+            strokeSegment(prevX, prevY, nextX, nextY, i > 1);
+            prevX = nextX;
+            prevY = nextY;
+        }
+    }
+
+    @Override
+    public void fillOval(int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        if (isTranslation()) {
+            double cx = x + m02 + width / 2.0;
+            double cy = y + m12 + height / 2.0;
+            double rx = width / 2.0;
+            double ry = height / 2.0;
+            int fromY = Math.max(clipY0, (int) Math.floor(cy - ry));
+            int toY = Math.min(clipY1, (int) Math.ceil(cy + ry));
+            for (int py = fromY; py < toY; py++) {
+                double dy = (py + 0.5 - cy) / ry;
+                if (dy > -1 && dy < 1) {
+                    double halfWidth = rx * Math.sqrt(1 - dy * dy);
+                    fillSpan(py, (int) Math.ceil(cx - halfWidth - 0.5), (int) Math.ceil(cx + halfWidth - 0.5));
+                }
+            }
+        } else {
+            int segments = ovalSegments(width, height);
+            double cx = x + width / 2.0;
+            double cy = y + height / 2.0;
+            edgeCount = 0;
+            double prevX = deviceX(cx + width / 2.0, cy);
+            double prevY = deviceY(cx + width / 2.0, cy);
+            for (int i = 1; i <= segments; i++) {
+                double angle = 2 * Math.PI * i / segments;
+                double ux = cx + Math.cos(angle) * width / 2;
+                double uy = cy + Math.sin(angle) * height / 2;
+                double nextX = deviceX(ux, uy);
+                double nextY = deviceY(ux, uy);
+                addEdge(prevX, prevY, nextX, nextY);
+                prevX = nextX;
+                prevY = nextY;
+            }
+            fillEdges();
+        }
+    }
+
+    private static int ovalSegments(int width, int height) {
+        return Math.max(8, Math.min(MAX_OVAL_SEGMENTS, 2 * (width + height)));
+    }
+
+    @Override
+    public void drawPoint(int x, int y) {
+        drawLine(x, y, x, y);
+    }
+
+    @Override
+    public void drawPath(BPath path) {
+        RasterPath rasterPath = (RasterPath) path;
+        double prevX = 0;
+        double prevY = 0;
+        for (int i = 0; i < rasterPath.size(); i++) {
+            double x = deviceX(rasterPath.x(i), rasterPath.y(i));
+            double y = deviceY(rasterPath.x(i), rasterPath.y(i));
+            if (rasterPath.isSubpathStart(i)) {
+                dashPosition = dashPhase;
+            } else {
+                strokeSegment(prevX, prevY, x, y, !rasterPath.isSubpathStart(i - 1));
+            }
+            prevX = x;
+            prevY = y;
+        }
+    }
+
+    @Override
+    public void fillPath(BPath path) {
+        RasterPath rasterPath = (RasterPath) path;
+        edgeCount = 0;
+        int start = 0;
+        for (int i = 1; i <= rasterPath.size(); i++) {
+            if (i == rasterPath.size() || rasterPath.isSubpathStart(i)) {
+                // every subpath is implicitly closed
+                for (int j = start; j < i; j++) {
+                    int next = j + 1 < i ? j + 1 : start;
+                    addEdge(deviceX(rasterPath.x(j), rasterPath.y(j)), deviceY(rasterPath.x(j), rasterPath.y(j)),
+                            deviceX(rasterPath.x(next), rasterPath.y(next)), deviceY(rasterPath.x(next), rasterPath.y(next)));
+                }
+                start = i;
+            }
+        }
+        fillEdges();
+    }
+
+    @Override
+    public BPath getEmptyPath() {
+        return new RasterPath();
+    }
+
+    @Override
+    public void drawPolyline(int[] xs, int[] ys, int n) {
+        if (n <= 0) {
+            return;
+        }
+        dashPosition = dashPhase;
+        double prevX = deviceX(xs[0], ys[0]);
+        double prevY = deviceY(xs[0], ys[0]);
+        for (int i = 1; i < n; i++) {
+            double x = deviceX(xs[i], ys[i]);
+            double y = deviceY(xs[i], ys[i]);
+            strokeSegment(prevX, prevY, x, y, i > 1);
+            prevX = x;
+            prevY = y;
+        }
+    }
+
+    @Override
+    public void fillPolygon(int[] xs, int[] ys, int n) {
+        edgeCount = 0;
+        for (int i = 0; i < n; i++) {
+            int next = (i + 1) % n;
+            addEdge(deviceX(xs[i], ys[i]), deviceY(xs[i], ys[i]), deviceX(xs[next], ys[next]), deviceY(xs[next], ys[next]));
+        }
+        fillEdges();
+    }
+
+    @Override
+    public void drawLines(int[] xs, int[] ys, int n) {
+        for (int i = 1; i < n; i += 2) {
+            drawLine(xs[i - 1], ys[i - 1], xs[i], ys[i]);
+        }
+    }
+
+    @Override
+    public void fillRects(int[] xs, int[] ys, int n, int width, int height) {
+        for (int i = 0; i < n; i++) {
+            fillRect(xs[i], ys[i], width, height);
+        }
+    }
+
+    @Override
+    public void fillOvals(int[] xs, int[] ys, int n, int width, int height) {
+        for (int i = 0; i < n; i++) {
+            fillOval(xs[i], ys[i], width, height);
+        }
+    }
+
+    @Override
+    public BCanvas createCompatibleCanvas(int width, int height) {
+        return new RasterCanvas(width, height);
+    }
+
+    @Override
+    public void drawCanvas(BCanvas canvas, int x, int y) {
+        if (!(canvas instanceof RasterCanvas)) {
+            String errMsg = "Only RasterCanvas may be drawn on RasterCanvas. Got: " + canvas;
+            throw new IllegalArgumentException(errMsg);
+        }
+        RasterCanvas tile = (RasterCanvas) canvas;
+        if (isTranslation()) {
+            int deviceX = x + (int) m02;
+            int deviceY = y + (int) m12;
+            int fromX = Math.max(clipX0, deviceX);
+            int toX = Math.min(clipX1, deviceX + tile.width);
+            int fromY = Math.max(clipY0, deviceY);
+            int toY = Math.min(clipY1, deviceY + tile.height);
+            for (int py = fromY; py < toY; py++) {
+                int tileRow = (py - deviceY) * tile.width - deviceX;
+                for (int px = fromX; px < toX; px++) {
+                    int src = tile.pixels[tileRow + px];
+                    blendPixel(py * width + px, src, src >>> 24);
+                }
+            }
+            return;
+        }
+        // every device pixel of the tile bounding box is mapped back to the tile
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int cornerX = (i == 1 || i == 2) ? x + tile.width : x;
+            int cornerY = i >= 2 ? y + tile.height : y;
+            minX = Math.min(minX, deviceX(cornerX, cornerY));
+            minY = Math.min(minY, deviceY(cornerX, cornerY));
+            maxX = Math.max(maxX, deviceX(cornerX, cornerY));
+            maxY = Math.max(maxY, deviceY(cornerX, cornerY));
+        }
+        int fromX = Math.max(clipX0, (int) Math.floor(minX));
+        int toX = Math.min(clipX1, (int) Math.ceil(maxX));
+        int fromY = Math.max(clipY0, (int) Math.floor(minY));
+        int toY = Math.min(clipY1, (int) Math.ceil(maxY));
+        double det = m00 * m11 - m01 * m10;
+        for (int py = fromY; py < toY; py++) {
+            for (int px = fromX; px < toX; px++) {
+                double dx = px + 0.5 - m02;
+                double dy = py + 0.5 - m12;
+                int tileX = (int) Math.floor((m11 * dx - m01 * dy) / det) - x;
+                int tileY = (int) Math.floor((-m10 * dx + m00 * dy) / det) - y;
+                if (tileX >= 0 && tileX < tile.width && tileY >= 0 && tileY < tile.height) {
+                    int src = tile.pixels[tileY * tile.width + tileX];
+                    blendPixel(py * width + px, src, src >>> 24);
+                }
+            }
+        }
+    }
+
+    /**
+     * Strokes the segment taking into account the dash pattern
+     *
+     * @param isJoint if true the first point of the segment is the end of the previous one
+     *                and already drawn
+     */
+    private void strokeSegment(double x0, double y0, double x1, double y1, boolean isJoint) {
+        if (dash == null) {
+            drawSolidSegment(x0, y0, x1, y1, isJoint);
+            return;
+        }
+        double length = Math.hypot(x1 - x0, y1 - y0);
+        if (length == 0) {
+            return;
+        }
+        float patternLength = 0;
+        for (float dashLength : dash) {
+            patternLength += dashLength;
+        }
+        if (!clipSegment(x0, y0, x1, y1, strokeWidth / 2.0 + CLIP_MARGIN)) {
+            dashPosition += length;
+            return;
+        }
+        // dashes outside the clip are skipped, only the dash phase is advanced
+        double position = segmentClip[0] * length;
+        double end = segmentClip[1] * length;
+        dashPosition += position;
+        while (position < end) {
+            dashPosition %= patternLength;
+            int dashIndex = 0;
+            float dashEnd = dash[0];
+            while (dashEnd <= dashPosition) {
+                dashIndex++;
+                dashEnd += dash[dashIndex];
+            }
+            double piece = Math.min(dashEnd - dashPosition, end - position);
+            if (dashIndex % 2 == 0) {
+                double t0 = position / length;
+                double t1 = (position + piece) / length;
+                drawSolidSegment(x0 + (x1 - x0) * t0, y0 + (y1 - y0) * t0,
+                        x0 + (x1 - x0) * t1, y0 + (y1 - y0) * t1, false);
+            }
+            position += piece;
+            dashPosition += piece;
+        }
+        dashPosition += length - end;
+    }
+
+    private void drawSolidSegment(double x0, double y0, double x1, double y1, boolean isFirstPointSkipped) {
+        // only the visible part of the segment is drawn so huge coordinates
+        // neither overflow nor make us walk millions of invisible pixels
+        if (!clipSegment(x0, y0, x1, y1, strokeWidth / 2.0 + CLIP_MARGIN)) {
+            return;
+        }
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        if (segmentClip[1] < 1) {
+            x1 = x0 + dx * segmentClip[1];
+            y1 = y0 + dy * segmentClip[1];
+        }
+        if (segmentClip[0] > 0) {
+            x0 += dx * segmentClip[0];
+            y0 += dy * segmentClip[0];
+            isFirstPointSkipped = false;
+        }
+        if (strokeWidth <= 1) {
+            drawBresenhamLine((int) Math.floor(x0), (int) Math.floor(y0), (int) Math.floor(x1), (int) Math.floor(y1), isFirstPointSkipped);
+            return;
+        }
+        // wide line is filled as a rectangle around the line through the pixels centers
+        double length = Math.hypot(x1 - x0, y1 - y0);
+        double halfWidth = strokeWidth / 2.0;
+        double nx;
+        double ny;
+        if (length == 0) {
+            // point is drawn as a square
+            nx = 0;
+            ny = halfWidth;
+            x0 -= halfWidth;
+            x1 += halfWidth;
+        } else {
+            nx = -(y1 - y0) / length * halfWidth;
+            ny = (x1 - x0) / length * halfWidth;
+        }
+        x0 += 0.5;
+        y0 += 0.5;
+        x1 += 0.5;
+        y1 += 0.5;
+        edgeCount = 0;
+        addEdge(x0 + nx, y0 + ny, x1 + nx, y1 + ny);
+        addEdge(x1 + nx, y1 + ny, x1 - nx, y1 - ny);
+        addEdge(x1 - nx, y1 - ny, x0 - nx, y0 - ny);
+        addEdge(x0 - nx, y0 - ny, x0 + nx, y0 + ny);
+        fillEdges();
+    }
+
+    /**
+     * Liang-Barsky clipping of the segment by the clip rectangle extended by the margin.
+     * Parameters of the visible part (0 <= t0 <= t1 <= 1) are stored in segmentClip
+     *
+     * @return false if the segment is not visible
+     */
+    private boolean clipSegment(double x0, double y0, double x1, double y1, double margin) {
+        if (!Double.isFinite(x0) || !Double.isFinite(y0) || !Double.isFinite(x1) || !Double.isFinite(y1)) {
+            return false;
+        }
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        segmentClip[0] = 0;
+        segmentClip[1] = 1;
+        return clipSegmentSide(-dx, x0 - (clipX0 - margin))
+                && clipSegmentSide(dx, clipX1 + margin - x0)
+                && clipSegmentSide(-dy, y0 - (clipY0 - margin))
+                && clipSegmentSide(dy, clipY1 + margin - y0);
+    }
+
+    private boolean clipSegmentSide(double p, double q) {
+        if (p == 0) {
+            // segment is parallel to the side
+            return q >= 0;
+        }
+        double t = q / p;
+        if (p < 0) {
+            if (t > segmentClip[1]) {
+                return false;
+            }
+            segmentClip[0] = Math.max(segmentClip[0], t);
+        } else {
+            if (t < segmentClip[0]) {
+                return false;
+            }
+            segmentClip[1] = Math.min(segmentClip[1], t);
+        }
+        return true;
+    }
+
+    private void drawBresenhamLine(int x0, int y0, int x1, int y1, boolean isFirstPointSkipped) {
+        int colorAlpha = color >>> 24;
+        int dx = Math.abs(x1 - x0);
+        int dy = -Math.abs(y1 - y0);
+        int stepX = x0 < x1 ? 1 : -1;
+        int stepY = y0 < y1 ? 1 : -1;
+        int error = dx + dy;
+        int x = x0;
+        int y = y0;
+        boolean isPointDrawn = !isFirstPointSkipped;
+        while (true) {
+            if (isPointDrawn && x >= clipX0 && x < clipX1 && y >= clipY0 && y < clipY1) {
+                blend(x, y, colorAlpha);
+            }
+            isPointDrawn = true;
+            if (x == x1 && y == y1) {
+                break;
+            }
+            int error2 = 2 * error;
+            if (error2 >= dy) {
+                error += dy;
+                x += stepX;
+            }
+            if (error2 <= dx) {
+                error += dx;
+                y += stepY;
+            }
+        }
+    }
+
+    private void addEdge(double x0, double y0, double x1, double y1) {
+        if (y0 == y1) {
+            return;
+        }
+        if (edgeCount * 4 + 4 > edges.length) {
+            float[] newEdges = new float[edges.length * 2];
+            System.arraycopy(edges, 0, newEdges, 0, edgeCount * 4);
+            edges = newEdges;
+        }
+        int i = edgeCount * 4;
+        edges[i] = (float) x0;
+        edges[i + 1] = (float) y0;
+        edges[i + 2] = (float) x1;
+        edges[i + 3] = (float) y1;
+        edgeCount++;
+    }
+
+    /**
+     * Fills the polygon given by the added edges by the non zero winding rule
+     */
+    private void fillEdges() {
+        if (edgeCount == 0) {
+            return;
+        }
+        float minY = Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < edgeCount; i++) {
+            minY = Math.min(minY, Math.min(edges[4 * i + 1], edges[4 * i + 3]));
+            maxY = Math.max(maxY, Math.max(edges[4 * i + 1], edges[4 * i + 3]));
+        }
+        int fromY = Math.max(clipY0, (int) Math.ceil(minY - 0.5));
+        int toY = Math.min(clipY1, (int) Math.ceil(maxY - 0.5));
+        for (int py = fromY; py < toY; py++) {
+            float sampleY = py + 0.5f;
+            int count = 0;
+            for (int i = 0; i < edgeCount; i++) {
+                float ex0 = edges[4 * i];
+                float ey0 = edges[4 * i + 1];
+                float ex1 = edges[4 * i + 2];
+                float ey1 = edges[4 * i + 3];
+                if (sampleY >= Math.min(ey0, ey1) && sampleY < Math.max(ey0, ey1)) {
+                    float crossing = ex0 + (sampleY - ey0) * (ex1 - ex0) / (ey1 - ey0);
+                    int winding = ey1 > ey0 ? 1 : -1;
+                    if (count == crossings.length) {
+                        float[] newCrossings = new float[count * 2];
+                        int[] newWindings = new int[count * 2];
+                        System.arraycopy(crossings, 0, newCrossings, 0, count);
+                        System.arraycopy(windings, 0, newWindings, 0, count);
+                        crossings = newCrossings;
+                        windings = newWindings;
+                    }
+                    // insertion sort by x
+                    int j = count;
+                    while (j > 0 && crossings[j - 1] > crossing) {
+                        crossings[j] = crossings[j - 1];
+                        windings[j] = windings[j - 1];
+                        j--;
+                    }
+                    crossings[j] = crossing;
+                    windings[j] = winding;
+                    count++;
+                }
+            }
+            int winding = 0;
+            float spanStart = 0;
+            for (int i = 0; i < count; i++) {
+                int prevWinding = winding;
+                winding += windings[i];
+                if (prevWinding == 0 && winding != 0) {
+                    spanStart = crossings[i];
+                } else if (prevWinding != 0 && winding == 0) {
+                    fillSpan(py, (int) Math.ceil(spanStart - 0.5), (int) Math.ceil(crossings[i] - 0.5));
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills the pixels [fromX, toX) of the device row y (y must be inside the clip)
+     */
+    private void fillSpan(int y, int fromX, int toX) {
+        int colorAlpha = color >>> 24;
+        fromX = Math.max(clipX0, fromX);
+        toX = Math.min(clipX1, toX);
+        if (colorAlpha == 255) {
+            int opaqueColor = color;
+            int rowStart = y * width;
+            for (int x = fromX; x < toX; x++) {
+                pixels[rowStart + x] = opaqueColor;
+            }
+        } else {
+            for (int x = fromX; x < toX; x++) {
+                blend(x, y, colorAlpha);
+            }
+        }
+    }
+
+    /**
+     * Draws the current color over the pixel with the given alpha (SrcOver)
+     */
+    private void blend(int x, int y, int alpha) {
+        blendPixel(y * width + x, color, alpha);
+    }
+
+    private void blendPixel(int index, int rgb, int alpha) {
+        if (alpha <= 0) {
+            return;
+        }
+        if (alpha >= 255) {
+            pixels[index] = rgb | 0xFF000000;
+            return;
+        }
+        int dst = pixels[index];
+        int dstWeight = (dst >>> 24) * (255 - alpha) / 255;
+        int outAlpha = alpha + dstWeight;
+        int red = (((rgb >> 16) & 0xFF) * alpha + ((dst >> 16) & 0xFF) * dstWeight) / outAlpha;
+        int green = (((rgb >> 8) & 0xFF) * alpha + ((dst >> 8) & 0xFF) * dstWeight) / outAlpha;
+        int blue = ((rgb & 0xFF) * alpha + (dst & 0xFF) * dstWeight) / outAlpha;
+        pixels[index] = outAlpha << 24 | red << 16 | green << 8 | blue;
+    }
+}
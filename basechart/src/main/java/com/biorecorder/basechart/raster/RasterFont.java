@@ -0,0 +1,151 @@
+package com.biorecorder.basechart.raster;
+
+import com.biorecorder.basechart.graphics.TextStyle;
+
+import java.awt.Font;
+import java.awt.Rectangle;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.font.LineMetrics;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Font metrics and cache of antialiased glyph coverage masks.
+ * <p>
+ * Glyph outlines are rasterized by the AWT font engine (that works under java.awt.headless)
+ * only once per font and character. Printable ASCII glyphs are prepared
+ * when the font is created, so in a steady state text is drawn from the shared
+ * immutable masks without any AWT calls and the fonts may be used by any number of threads.
+ */
+class RasterFont {
+    private static final int MAX_FONTS_COUNT = 64;
+    private static final Map<String, RasterFont> fonts = new ConcurrentHashMap<>();
+    private static final FontRenderContext fontRenderContext = new FontRenderContext(new AffineTransform(), true, false);
+    private static final char FIRST_ASCII = 32;
+    private static final char LAST_ASCII = 126;
+
+    private final Font font;
+    private final int ascent;
+    private final int descent;
+    private final int height;
+    private final Glyph[] asciiGlyphs = new Glyph[LAST_ASCII + 1];
+    private final Map<Character, Glyph> otherGlyphs = new ConcurrentHashMap<>();
+
+    private RasterFont(Font font) {
+        this.font = font;
+        LineMetrics lineMetrics = font.getLineMetrics("Ag", fontRenderContext);
+        ascent = (int) Math.ceil(lineMetrics.getAscent());
+        descent = (int) Math.ceil(lineMetrics.getDescent());
+        height = ascent + descent + (int) Math.ceil(lineMetrics.getLeading());
+        for (char c = FIRST_ASCII; c <= LAST_ASCII; c++) {
+            asciiGlyphs[c] = createGlyph(c);
+        }
+    }
+
+    static RasterFont getFont(TextStyle textStyle) {
+        String key = textStyle.getFontName() + "-" + textStyle.isBold() + "-" + textStyle.isItalic() + "-" + textStyle.getSize();
+        RasterFont rasterFont = fonts.get(key);
+        if (rasterFont == null) {
+            String fontName = textStyle.getFontName();
+            if (TextStyle.DEFAULT.equals(fontName)) {
+                fontName = TextStyle.SANS_SERIF;
+            }
+            int style = Font.PLAIN;
+            if (textStyle.isBold()) {
+                style += Font.BOLD;
+            }
+            if (textStyle.isItalic()) {
+                style += Font.ITALIC;
+            }
+            if (fonts.size() >= MAX_FONTS_COUNT) {
+                fonts.clear();
+            }
+            rasterFont = new RasterFont(new Font(fontName, style, textStyle.getSize()));
+            RasterFont existingFont = fonts.putIfAbsent(key, rasterFont);
+            if (existingFont != null) {
+                rasterFont = existingFont;
+            }
+        }
+        return rasterFont;
+    }
+
+    int ascent() {
+        return ascent;
+    }
+
+    int descent() {
+        return descent;
+    }
+
+    int height() {
+        return height;
+    }
+
+    int stringWidth(String str) {
+        int width = 0;
+        for (int i = 0; i < str.length(); i++) {
+            width += getGlyph(str.charAt(i)).advance;
+        }
+        return width;
+    }
+
+    Glyph getGlyph(char c) {
+        if (c >= FIRST_ASCII && c <= LAST_ASCII) {
+            return asciiGlyphs[c];
+        }
+        Glyph glyph = otherGlyphs.get(c);
+        if (glyph == null) {
+            glyph = createGlyph(c);
+            otherGlyphs.put(c, glyph);
+        }
+        return glyph;
+    }
+
+    private Glyph createGlyph(char c) {
+        GlyphVector glyphVector = font.createGlyphVector(fontRenderContext, new char[]{c});
+        int advance = Math.round(glyphVector.getGlyphMetrics(0).getAdvanceX());
+        Rectangle bounds = glyphVector.getPixelBounds(fontRenderContext, 0, 0);
+        if (bounds.width <= 0 || bounds.height <= 0) {
+            return new Glyph(advance, 0, 0, 0, 0, new byte[0]);
+        }
+        BufferedImage image = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = image.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2.drawGlyphVector(glyphVector, -bounds.x, -bounds.y);
+        g2.dispose();
+        byte[] coverage = new byte[bounds.width * bounds.height];
+        for (int y = 0; y < bounds.height; y++) {
+            for (int x = 0; x < bounds.width; x++) {
+                coverage[y * bounds.width + x] = (byte) (image.getRGB(x, y) >>> 24);
+            }
+        }
+        return new Glyph(advance, bounds.x, bounds.y, bounds.width, bounds.height, coverage);
+    }
+
+    /**
+     * Coverage mask (0 - 255) of the glyph with the top left corner
+     * at (left, top) relative to the pen position on the baseline
+     */
+    static class Glyph {
+        final int advance;
+        final int left;
+        final int top;
+        final int width;
+        final int height;
+        final byte[] coverage;
+
+        Glyph(int advance, int left, int top, int width, int height, byte[] coverage) {
+            this.advance = advance;
+            this.left = left;
+            this.top = top;
+            this.width = width;
+            this.height = height;
+            this.coverage = coverage;
+        }
+    }
+}
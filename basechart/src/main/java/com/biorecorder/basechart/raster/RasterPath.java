@@ -0,0 +1,78 @@
+package com.biorecorder.basechart.raster;
+
+import com.biorecorder.basechart.graphics.BPath;
+
+import java.util.Arrays;
+
+/**
+ * Path of straight segments. Quadratic curves are flattened when they are added.
+ * Points are kept in one float array: subpath starts are marked in a parallel array.
+ */
+public class RasterPath implements BPath {
+    private static final int QUAD_SEGMENTS = 8;
+    private float[] points = new float[32];
+    private boolean[] isSubpathStart = new boolean[16];
+    private int size;
+
+    @Override
+    public void moveTo(float x, float y) {
+        add(x, y, true);
+    }
+
+    @Override
+    public void lineTo(float x, float y) {
+        add(x, y, size == 0);
+    }
+
+    @Override
+    public void quadTo(float x1, float y1, float x2, float y2) {
+        if (size == 0) {
+            moveTo(x1, y1);
+        }
+        float x0 = points[2 * size - 2];
+        float y0 = points[2 * size - 1];
+        for (int i = 1; i <= QUAD_SEGMENTS; i++) {
+            float t = (float) i / QUAD_SEGMENTS;
+            float u = 1 - t;
+            add(u * u * x0 + 2 * u * t * x1 + t * t * x2, u * u * y0 + 2 * u * t * y1 + t * t * y2, false);
+        }
+    }
+
+    @Override
+    public void close() {
+        int start = size - 1;
+        while (start > 0 && !isSubpathStart[start]) {
+            start--;
+        }
+        if (start >= 0 && start < size - 1) {
+            add(points[2 * start], points[2 * start + 1], false);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    float x(int i) {
+        return points[2 * i];
+    }
+
+    float y(int i) {
+        return points[2 * i + 1];
+    }
+
+    boolean isSubpathStart(int i) {
+        return isSubpathStart[i];
+    }
+
+    private void add(float x, float y, boolean isStart) {
+        if (size == isSubpathStart.length) {
+            isSubpathStart = Arrays.copyOf(isSubpathStart, size * 2);
+            points = Arrays.copyOf(points, size * 4);
+        }
+        points[2 * size] = x;
+        points[2 * size + 1] = y;
+        isSubpathStart[size] = isStart;
+        size++;
+    }
+}
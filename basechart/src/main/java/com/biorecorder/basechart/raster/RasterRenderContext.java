@@ -0,0 +1,53 @@
+package com.biorecorder.basechart.raster;
+
+import com.biorecorder.basechart.graphics.RenderContext;
+import com.biorecorder.basechart.graphics.TextMetric;
+import com.biorecorder.basechart.graphics.TextStyle;
+
+/**
+ * Text metrics of the fonts used by {@link RasterCanvas}
+ */
+public class RasterRenderContext implements RenderContext {
+
+    @Override
+    public TextMetric getTextMetric(TextStyle textStyle) {
+        final RasterFont font = RasterFont.getFont(textStyle);
+        return new TextMetric() {
+            @Override
+            public int ascent() {
+                return font.ascent();
+            }
+
+            @Override
+            public int descent() {
+                return font.descent();
+            }
+
+            @Override
+            public int height() {
+                return font.height();
+            }
+
+            @Override
+            public int stringWidth(String str) {
+                if (str != null) {
+                    return font.stringWidth(str);
+                }
+                return 0;
+            }
+        };
+    }
+
+    /**
+     * Raster fonts are global so any two contexts give the same metrics
+     */
+    @Override
+    public boolean equals(Object obj) {
+        return obj != null && obj.getClass() == getClass();
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
@@ -5,12 +5,19 @@ import com.biorecorder.basechart.utils.NormalizedNumber;
 import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 /**
  * Created by galafit on 6/9/17.
  */
 public class LinearScale extends Scale {
+    // the negative sign of zero results: -0.0 and so on
+    private static final Pattern NEGATIVE_ZERO = Pattern.compile("^-(?=0(.0*)?$)");
     private DecimalFormat numberFormatter;
+    // tick formatters do not depend on min and max so they survive scrolling
+    private Map<String, NumberTickFormatter> tickFormatters = new HashMap<>();
 
     @Override
     public Scale copy() {
@@ -126,10 +133,53 @@ public class LinearScale extends Scale {
     }
 
 
+    private NumberTickFormatter getTickFormatter(int power, TickLabelFormat labelFormatInfo) {
+        String key = String.valueOf(power);
+        if (labelFormatInfo != null) {
+            key += " " + labelFormatInfo.getPrefix() + " " + labelFormatInfo.getSuffix();
+        }
+        NumberTickFormatter formatter = tickFormatters.get(key);
+        if (formatter == null) {
+            formatter = new NumberTickFormatter(getNumberFormat(power, labelFormatInfo));
+            tickFormatters.put(key, formatter);
+        }
+        return formatter;
+    }
+
+    static class NumberTickFormatter implements TickFormatter {
+        private final DecimalFormat format;
+        private final String pattern;
+
+        NumberTickFormatter(DecimalFormat format) {
+            this.format = format;
+            pattern = format.toPattern();
+        }
+
+        @Override
+        public String format(double value) {
+            String formattedValue = format.format(value);
+            // truncate the negative sign when the result returns zero: -0.0 and so on
+            return NEGATIVE_ZERO.matcher(formattedValue).replaceAll("");
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof NumberTickFormatter)) {
+                return false;
+            }
+            return pattern.equals(((NumberTickFormatter) o).pattern);
+        }
+
+        @Override
+        public int hashCode() {
+            return pattern.hashCode();
+        }
+    }
+
     class LinearTickProvider implements TickProvider {
         private NormalizedNumber tickInterval;
         private TickLabelFormat labelFormatInfo;
-        private DecimalFormat labelFormat = new DecimalFormat();
+        private NumberTickFormatter labelFormat;
         private double currentTick;
 
         public LinearTickProvider(TickLabelFormat labelFormatInfo) {
@@ -138,7 +188,7 @@ public class LinearScale extends Scale {
 
         public void setTickInterval(double tickInterval1) {
             this.tickInterval = new NormalizedNumber(tickInterval1);
-            labelFormat = getNumberFormat(tickInterval.exponent(), labelFormatInfo);
+            labelFormat = getTickFormatter(tickInterval.exponent(), labelFormatInfo);
         }
 
         /**
@@ -184,25 +234,25 @@ public class LinearScale extends Scale {
                     break;
             }
             tickInterval = new NormalizedNumber(firstDigit,  exponent);
-            labelFormat = getNumberFormat(exponent, labelFormatInfo);
+            labelFormat = getTickFormatter(exponent, labelFormatInfo);
         }
 
         @Override
         public void increaseTickInterval(int increaseFactor) {
             tickInterval = tickInterval.multiply(increaseFactor);
-            labelFormat = getNumberFormat(tickInterval.exponent(), labelFormatInfo);
+            labelFormat = getTickFormatter(tickInterval.exponent(), labelFormatInfo);
         }
 
         @Override
         public Tick getNextTick() {
             currentTick += tickInterval.value();
-            return new Tick(currentTick, format(currentTick));
+            return new Tick(currentTick, labelFormat);
         }
 
         @Override
         public Tick getPreviousTick() {
             currentTick -= tickInterval.value();
-            return new Tick(currentTick, format(currentTick));
+            return new Tick(currentTick, labelFormat);
         }
 
         @Override
@@ -211,7 +261,7 @@ public class LinearScale extends Scale {
             if(currentTick < value) {
                 currentTick += tickInterval.value();
             }
-            return new Tick(currentTick, format(currentTick));
+            return new Tick(currentTick, labelFormat);
         }
 
         @Override
@@ -220,14 +270,7 @@ public class LinearScale extends Scale {
             if(currentTick > value) {
                 currentTick -= tickInterval.value();
             }
-            return new Tick(currentTick, format(currentTick));
-        }
-
-        public String format(double value) {
-            String formattedValue = labelFormat.format(value);
-            // truncate the negative sign when the result returns zero: -0.0 and so on
-            formattedValue = formattedValue.replaceAll("^-(?=0(.0*)?$)", "");
-            return formattedValue;
+            return new Tick(currentTick, labelFormat);
         }
 
     }
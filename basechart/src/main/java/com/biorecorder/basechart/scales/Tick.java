@@ -1,22 +1,41 @@
 package com.biorecorder.basechart.scales;
 
+import com.sun.istack.internal.Nullable;
+
 /**
  * Created by galafit on 5/9/17.
  */
 public class Tick {
     private double value;
     private String label;
+    private TickFormatter formatter;
 
     public Tick(double tickValue, String tickLabel) {
         this.value = tickValue;
         this.label = tickLabel;
     }
 
+    /**
+     * The label is formatted only when it is requested
+     */
+    public Tick(double tickValue, TickFormatter formatter) {
+        this.value = tickValue;
+        this.formatter = formatter;
+    }
+
     public double getValue() {
         return value;
     }
 
+    @Nullable
+    public TickFormatter getFormatter() {
+        return formatter;
+    }
+
     public String getLabel() {
+        if (label == null && formatter != null) {
+            label = formatter.format(value);
+        }
         return label;
     }
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.biorecorder.basechart.scales;
+
+/**
+ * Converts tick values to labels. Equal formatters give equal labels
+ * for the same values, so the labels may be cached by tick value
+ */
+public interface TickFormatter {
+    String format(double value);
+}
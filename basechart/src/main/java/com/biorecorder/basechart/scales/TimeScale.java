@@ -6,6 +6,9 @@ import com.biorecorder.data.frame.TimeUnit;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.EnumMap;
+import java.util.Map;
 
 
 /**
@@ -13,6 +16,8 @@ import java.text.SimpleDateFormat;
  */
 public class TimeScale extends LinearScale {
     private DateFormat timeFormat = new SimpleDateFormat("HH:mm:ss.SSS dd-MMM-yyyy ");
+    // date formats are expensive to create so they are kept for all the scale ticks
+    private Map<TimeUnit, DateFormatter> tickFormatters = new EnumMap<>(TimeUnit.class);
 
     @Override
     public Scale copy() {
@@ -76,8 +81,11 @@ public class TimeScale extends LinearScale {
                 multiplier = Math.max(1, multiplier);
             }
             timeIntervalProvider = new TimeIntervalProvider(timeUnit, multiplier);
-            System.out.println("time tick provider "+ timeUnit + " "+multiplier);
-            labelFormat = new DateFormatter(timeUnit);
+            labelFormat = tickFormatters.get(timeUnit);
+            if(labelFormat == null) {
+                labelFormat = new DateFormatter(timeUnit);
+                tickFormatters.put(timeUnit, labelFormat);
+            }
         }
 
 
@@ -129,56 +137,74 @@ public class TimeScale extends LinearScale {
         }
 
         private Tick currentTick() {
-            return new Tick(timeIntervalProvider.getCurrentIntervalStartMs(), labelFormat.format(timeIntervalProvider.getCurrentIntervalStartMs(), timeIntervalProvider.getCurrentIntervalStartHours()));
+            return new Tick(timeIntervalProvider.getCurrentIntervalStartMs(), labelFormat);
         }
+    }
 
-        class DateFormatter {
-            private final SimpleDateFormat primaryFormat;
-            private final SimpleDateFormat secondaryFormat;
-            private final TimeUnit timeUnit;
-
-            public DateFormatter(TimeUnit timeUnit) {
-                this.timeUnit = timeUnit;
-                switch (timeUnit) {
-                    case MILLISECOND:
-                        primaryFormat = new SimpleDateFormat("HH:mm:ss.SSS");
-                        secondaryFormat = primaryFormat;
-                        break;
-                    case SECOND:
-                        primaryFormat = new SimpleDateFormat("HH:mm:ss");
-                        secondaryFormat = primaryFormat;
-                        break;
-                    case MINUTE:
-                        primaryFormat = new SimpleDateFormat("HH:mm");
-                        secondaryFormat = primaryFormat;
-                        break;
-                    case HOUR:
-                        primaryFormat = new SimpleDateFormat("HH:mm");
-                        secondaryFormat = new SimpleDateFormat("dd. MMM");
-                        break;
-                    case DAY:
-                        primaryFormat =  new SimpleDateFormat("dd. MMM");
-                        secondaryFormat = primaryFormat;
-                        break;
-                    case WEEK:
-                    case MONTH:
-                        primaryFormat =  new SimpleDateFormat("MMM ''yy");
-                        secondaryFormat = primaryFormat;
-                        break;
-                    default:
-                        primaryFormat =  new SimpleDateFormat("yyyy");
-                        secondaryFormat = primaryFormat;
-                }
-
+    static class DateFormatter implements TickFormatter {
+        private final SimpleDateFormat primaryFormat;
+        private final SimpleDateFormat secondaryFormat;
+        private final TimeUnit timeUnit;
+        private final Calendar calendar = Calendar.getInstance();
+
+        public DateFormatter(TimeUnit timeUnit) {
+            this.timeUnit = timeUnit;
+            switch (timeUnit) {
+                case MILLISECOND:
+                    primaryFormat = new SimpleDateFormat("HH:mm:ss.SSS");
+                    secondaryFormat = primaryFormat;
+                    break;
+                case SECOND:
+                    primaryFormat = new SimpleDateFormat("HH:mm:ss");
+                    secondaryFormat = primaryFormat;
+                    break;
+                case MINUTE:
+                    primaryFormat = new SimpleDateFormat("HH:mm");
+                    secondaryFormat = primaryFormat;
+                    break;
+                case HOUR:
+                    primaryFormat = new SimpleDateFormat("HH:mm");
+                    secondaryFormat = new SimpleDateFormat("dd. MMM");
+                    break;
+                case DAY:
+                    primaryFormat =  new SimpleDateFormat("dd. MMM");
+                    secondaryFormat = primaryFormat;
+                    break;
+                case WEEK:
+                case MONTH:
+                    primaryFormat =  new SimpleDateFormat("MMM ''yy");
+                    secondaryFormat = primaryFormat;
+                    break;
+                default:
+                    primaryFormat =  new SimpleDateFormat("yyyy");
+                    secondaryFormat = primaryFormat;
             }
 
-            public String format(long ms, long hour) {
-                if( timeUnit == TimeUnit.HOUR && hour == 0) {
+        }
+
+        @Override
+        public String format(double value) {
+            long ms = (long) value;
+            if( timeUnit == TimeUnit.HOUR) {
+                calendar.setTimeInMillis(ms);
+                if(calendar.get(Calendar.HOUR_OF_DAY) == 0) {
                     return secondaryFormat.format(ms);
-                } else {
-                    return primaryFormat.format(ms);
                 }
             }
+            return primaryFormat.format(ms);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof DateFormatter)) {
+                return false;
+            }
+            return timeUnit == ((DateFormatter) o).timeUnit;
+        }
+
+        @Override
+        public int hashCode() {
+            return timeUnit.hashCode();
         }
     }
 }
@@ -7,6 +7,8 @@ import com.biorecorder.basechart.graphics.BRectangle;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
 
 /**
  * Created by galafit on 21/9/18.
@@ -22,6 +24,16 @@ public class ChartPanel extends JPanel implements KeyListener {
     private int pastY;
     private boolean isXDirection;
     private boolean isYDirection;
+    // extra pixels redrawn at the border of the scrolled image to hide the seam
+    private static final int SCROLL_OVERLAP = 8;
+    // offscreen image of the chart static layer (everything except crosshairs and tooltip)
+    private BufferedImage staticLayer;
+    private Object staticLayerKey;
+    private ScrollableLayer scrollableLayer;
+    // x axis minimum that the scrollable area content of the image corresponds to
+    private double scrollableLayerXMin;
+    // the scrollable area part kept while the static layer is redrawn
+    private BufferedImage keptLayer;
 
 
     public ChartPanel(Chart chart1) {
@@ -35,6 +47,20 @@ public class ChartPanel extends JPanel implements KeyListener {
     }
 
     private void init() {
+        chart.addDataProcessingListener(new DataProcessingListener() {
+            @Override
+            public void onDataProcessed() {
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        // new processed data are not seen in the static layer key
+                        staticLayerKey = null;
+                        scrollableLayer = null;
+                        repaint();
+                    }
+                });
+            }
+        });
         addMouseMotionListener(new MouseMotionAdapter() {
             @Override
             public void mouseDragged(MouseEvent e) {
@@ -186,9 +212,110 @@ public class ChartPanel extends JPanel implements KeyListener {
         }
     }
 
+    /**
+     * The static layer of the chart is redrawn into the offscreen image only when
+     * its key changes, so hovering (that changes only crosshairs and tooltip)
+     * just copies the image and draws the overlay layer
+     */
     @Override
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
-        chart.draw(new SwingCanvas((Graphics2D) g));
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        Graphics2D g2 = (Graphics2D) g;
+        SwingCanvas canvas = new SwingCanvas(g2);
+        // on HiDPI screens the image must have device resolution
+        AffineTransform transform = g2.getTransform();
+        double scaleX = transform.getScaleX();
+        double scaleY = transform.getScaleY();
+        int imageWidth = (int) Math.ceil(width * scaleX);
+        int imageHeight = (int) Math.ceil(height * scaleY);
+        Object key = chart.getStaticLayerKey(canvas);
+        if (staticLayer == null || staticLayer.getWidth() != imageWidth || staticLayer.getHeight() != imageHeight) {
+            staticLayer = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+            staticLayerKey = null;
+        }
+        if (!key.equals(staticLayerKey)) {
+            ScrollableLayer layer = chart.getScrollableLayer(canvas);
+            if (!scrollStaticLayer(layer, scaleX, scaleY, width, height)) {
+                Graphics2D imageGraphics = staticLayer.createGraphics();
+                imageGraphics.setComposite(AlphaComposite.Clear);
+                imageGraphics.fillRect(0, 0, imageWidth, imageHeight);
+                imageGraphics.setComposite(AlphaComposite.SrcOver);
+                imageGraphics.scale(scaleX, scaleY);
+                imageGraphics.setClip(0, 0, width, height);
+                chart.drawStaticLayer(new SwingCanvas(imageGraphics));
+                imageGraphics.dispose();
+                if (layer != null) {
+                    scrollableLayerXMin = layer.getXMin();
+                }
+            }
+            // drawing may finish lazy updates of the chart so the keys are taken after it
+            staticLayerKey = chart.getStaticLayerKey(canvas);
+            scrollableLayer = chart.getScrollableLayer(canvas);
+        }
+        g2.drawImage(staticLayer, 0, 0, width, height, null);
+        chart.drawOverlayLayer(canvas);
+    }
+
+    /**
+     * If the chart was only scrolled forward (auto scroll of appended data)
+     * the scrollable area of the cached image is moved and only the newly exposed strip
+     * (together with the appended data) is redrawn. Moved part is kept aside
+     * while the rest of the static layer is drawn and then put back over it.
+     * Rounding errors of the moves are accumulated in scrollableLayerXMin, so the image
+     * never deviates from the exact position by more than half a pixel.
+     *
+     * @return false if the static layer can not be scrolled and must be fully redrawn
+     */
+    private boolean scrollStaticLayer(ScrollableLayer layer, double scaleX, double scaleY, int width, int height) {
+        // image pixels are moved so the device scale must be integer
+        if (layer == null || scrollableLayer == null || !layer.isShiftOf(scrollableLayer)
+                || scaleX != scaleY || scaleX != Math.rint(scaleX)) {
+            return false;
+        }
+        double exactShift = layer.getShift(scrollableLayerXMin);
+        int shift = (int) Math.round(exactShift);
+        BRectangle area = layer.getArea();
+        if (shift > 0 || -shift >= area.width) {
+            return false;
+        }
+        int deviceScale = (int) scaleX;
+        int fromX = Math.min(area.x + area.width, scrollableLayer.getDataEnd()) + shift - SCROLL_OVERLAP;
+        int keptWidth = (Math.min(fromX, area.x + area.width) - area.x) * deviceScale;
+        int keptHeight = area.height * deviceScale;
+        int keptX = area.x * deviceScale;
+        int keptY = area.y * deviceScale;
+        if (keptWidth > 0) {
+            if (keptLayer == null || keptLayer.getWidth() < keptWidth || keptLayer.getHeight() < keptHeight) {
+                keptLayer = new BufferedImage(keptWidth, keptHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+            }
+            Graphics2D keptGraphics = keptLayer.createGraphics();
+            keptGraphics.setComposite(AlphaComposite.Src);
+            int sourceX = keptX - shift * deviceScale;
+            keptGraphics.drawImage(staticLayer, 0, 0, keptWidth, keptHeight,
+                    sourceX, keptY, sourceX + keptWidth, keptY + keptHeight, null);
+            keptGraphics.dispose();
+        }
+        Graphics2D imageGraphics = staticLayer.createGraphics();
+        imageGraphics.setComposite(AlphaComposite.Clear);
+        imageGraphics.fillRect(0, 0, staticLayer.getWidth(), staticLayer.getHeight());
+        imageGraphics.setComposite(AlphaComposite.SrcOver);
+        imageGraphics.scale(scaleX, scaleY);
+        imageGraphics.setClip(0, 0, width, height);
+        chart.drawScrolledStaticLayer(new SwingCanvas(imageGraphics), fromX);
+        imageGraphics.dispose();
+        if (keptWidth > 0) {
+            imageGraphics = staticLayer.createGraphics();
+            imageGraphics.setComposite(AlphaComposite.Src);
+            imageGraphics.drawImage(keptLayer, keptX, keptY, keptX + keptWidth, keptY + keptHeight,
+                    0, 0, keptWidth, keptHeight, null);
+            imageGraphics.dispose();
+        }
+        scrollableLayerXMin = layer.getShiftedXMin(shift - exactShift);
+        return true;
     }
 }
@@ -3,14 +3,17 @@ package com.biorecorder.basechart.swing;
 import com.biorecorder.basechart.graphics.TextMetric;
 import com.biorecorder.basechart.graphics.TextStyle;
 import com.biorecorder.basechart.graphics.*;
+import com.sun.istack.internal.Nullable;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 
 /**
@@ -20,6 +23,18 @@ public class SwingCanvas implements BCanvas {
     private Graphics2D g2;
     private List<AffineTransform> affineTransforms = new ArrayList<AffineTransform>();
     private List<Shape> boundsList = new ArrayList<Shape>();
+    // prerendered marker of the last used color, size and antialiasing
+    private BufferedImage markerSprite;
+    private Color markerSpriteColor;
+    private int markerSpriteWidth;
+    private int markerSpriteHeight;
+    private Object markerSpriteAntialiasing;
+    // offscreen image of the canvas created by createCompatibleCanvas
+    @Nullable
+    private BufferedImage image;
+    // size of the offscreen image in user space
+    private int imageWidth;
+    private int imageHeight;
 
     public SwingCanvas(Graphics2D g2) {
         this.g2 = g2;
@@ -170,6 +185,86 @@ public class SwingCanvas implements BCanvas {
         g2.draw(((AwtPath) path).getGeneralPath());
     }
 
+    @Override
+    public void drawPolyline(int[] xs, int[] ys, int n) {
+        g2.drawPolyline(xs, ys, n);
+    }
+
+    @Override
+    public void fillPolygon(int[] xs, int[] ys, int n) {
+        g2.fillPolygon(xs, ys, n);
+    }
+
+    @Override
+    public void drawLines(int[] xs, int[] ys, int n) {
+        for (int i = 1; i < n; i += 2) {
+            g2.drawLine(xs[i - 1], ys[i - 1], xs[i], ys[i]);
+        }
+    }
+
+    @Override
+    public void fillRects(int[] xs, int[] ys, int n, int width, int height) {
+        for (int i = 0; i < n; i++) {
+            g2.fillRect(xs[i], ys[i], width, height);
+        }
+    }
+
+    @Override
+    public void fillOvals(int[] xs, int[] ys, int n, int width, int height) {
+        BufferedImage sprite = getMarkerSprite(width, height);
+        if (sprite != null) {
+            for (int i = 0; i < n; i++) {
+                g2.drawImage(sprite, xs[i], ys[i], null);
+            }
+        } else {
+            Ellipse2D.Float oval = new Ellipse2D.Float(0, 0, width, height);
+            for (int i = 0; i < n; i++) {
+                oval.x = xs[i];
+                oval.y = ys[i];
+                g2.fill(oval);
+            }
+        }
+    }
+
+    /**
+     * Markers are stamped as a prerendered image only when that gives the same pixels
+     * as filling every oval: user space is just an integer translation of the device one
+     * and a plain color is drawn in SrcOver mode.
+     */
+    @Nullable
+    private BufferedImage getMarkerSprite(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+        AffineTransform transform = g2.getTransform();
+        if ((transform.getType() & ~AffineTransform.TYPE_TRANSLATION) != 0
+                || transform.getTranslateX() != Math.rint(transform.getTranslateX())
+                || transform.getTranslateY() != Math.rint(transform.getTranslateY())) {
+            return null;
+        }
+        if (!(g2.getPaint() instanceof Color) || !AlphaComposite.SrcOver.equals(g2.getComposite())) {
+            return null;
+        }
+        Color color = (Color) g2.getPaint();
+        Object antialiasing = g2.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+        if (markerSprite == null || !color.equals(markerSpriteColor)
+                || width != markerSpriteWidth || height != markerSpriteHeight
+                || !Objects.equals(antialiasing, markerSpriteAntialiasing)) {
+            // antialiased edges may touch one more pixel
+            markerSprite = new BufferedImage(width + 1, height + 1, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D spriteGraphics = markerSprite.createGraphics();
+            spriteGraphics.setRenderingHints(g2.getRenderingHints());
+            spriteGraphics.setColor(color);
+            spriteGraphics.fill(new Ellipse2D.Float(0, 0, width, height));
+            spriteGraphics.dispose();
+            markerSpriteColor = color;
+            markerSpriteWidth = width;
+            markerSpriteHeight = height;
+            markerSpriteAntialiasing = antialiasing;
+        }
+        return markerSprite;
+    }
+
     @Override
     public void fillPath(BPath path) {
         g2.fill(((AwtPath) path).getGeneralPath());
@@ -180,6 +275,58 @@ public class SwingCanvas implements BCanvas {
         return new AwtPath();
     }
 
+    @Override
+    public BCanvas createCompatibleCanvas(int width, int height) {
+        // on HiDPI screens the canvas is scaled so the tile is allocated
+        // at the device resolution to be drawn pixel to pixel
+        AffineTransform transform = g2.getTransform();
+        double scaleX = 1;
+        double scaleY = 1;
+        if (isScaleAndTranslation(transform)) {
+            scaleX = transform.getScaleX();
+            scaleY = transform.getScaleY();
+        }
+        int imageWidth = Math.max(1, (int) Math.ceil(width * scaleX));
+        int imageHeight = Math.max(1, (int) Math.ceil(height * scaleY));
+        BufferedImage tileImage = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D tileGraphics = tileImage.createGraphics();
+        tileGraphics.setRenderingHints(g2.getRenderingHints());
+        tileGraphics.scale(scaleX, scaleY);
+        SwingCanvas tile = new SwingCanvas(tileGraphics);
+        tile.image = tileImage;
+        tile.imageWidth = width;
+        tile.imageHeight = height;
+        return tile;
+    }
+
+    @Override
+    public void drawCanvas(BCanvas canvas, int x, int y) {
+        if (!(canvas instanceof SwingCanvas) || ((SwingCanvas) canvas).image == null) {
+            String errMsg = "Only canvas created by createCompatibleCanvas may be drawn. Got: " + canvas;
+            throw new IllegalArgumentException(errMsg);
+        }
+        SwingCanvas tile = (SwingCanvas) canvas;
+        AffineTransform transform = g2.getTransform();
+        AffineTransform tileTransform = tile.g2.getTransform();
+        if (isScaleAndTranslation(transform) && isScaleAndTranslation(tileTransform)
+                && transform.getScaleX() == tileTransform.getScaleX()
+                && transform.getScaleY() == tileTransform.getScaleY()) {
+            // tile pixels are copied to the device pixels without resampling
+            int deviceX = (int) Math.round(x * transform.getScaleX() + transform.getTranslateX());
+            int deviceY = (int) Math.round(y * transform.getScaleY() + transform.getTranslateY());
+            g2.setTransform(new AffineTransform());
+            g2.drawImage(tile.image, deviceX, deviceY, null);
+            g2.setTransform(transform);
+        } else {
+            g2.drawImage(tile.image, x, y, tile.imageWidth, tile.imageHeight, null);
+        }
+    }
+
+    private static boolean isScaleAndTranslation(AffineTransform transform) {
+        int otherTransformsMask = ~(AffineTransform.TYPE_TRANSLATION | AffineTransform.TYPE_UNIFORM_SCALE | AffineTransform.TYPE_GENERAL_SCALE);
+        return (transform.getType() & otherTransformsMask) == 0;
+    }
+
     @Override
     public void enableAntiAliasAndHinting() {
        /*
@@ -6,12 +6,32 @@ import com.biorecorder.basechart.graphics.TextStyle;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Fonts and their metrics are cached by text style and shared by all contexts.
+ * Widths of printable ASCII strings (numeric tick labels and so on) are summed up
+ * from the precomputed advances table without FontMetrics calls,
+ * widths of other strings are cached.
+ */
 public class SwingRenderContext implements RenderContext {
+    // normally a chart uses only a few text styles
+    private static final int MAX_STYLES_COUNT = 64;
+    private static final Map<String, StyleMetric> styleMetrics = new ConcurrentHashMap<>();
+    private static volatile String defaultFontName;
+
     public static Font getFont(TextStyle textStyle) {
+        return getStyleMetric(textStyle).font;
+    }
+
+    private static Font createFont(TextStyle textStyle) {
         String fontName = textStyle.getFontName();
         if (fontName == TextStyle.DEFAULT) {
-            fontName = new JLabel().getFont().getFontName();
+            if (defaultFontName == null) {
+                defaultFontName = new JLabel().getFont().getFontName();
+            }
+            fontName = defaultFontName;
         }
         int style = Font.PLAIN;
         if (textStyle.isBold()) {
@@ -23,32 +43,105 @@ public class SwingRenderContext implements RenderContext {
         return new Font(fontName, style, textStyle.getSize());
     }
 
+    private static StyleMetric getStyleMetric(TextStyle textStyle) {
+        String key = textStyle.getFontName() + " " + textStyle.isBold() + " " + textStyle.isItalic() + " " + textStyle.getSize();
+        StyleMetric styleMetric = styleMetrics.get(key);
+        if (styleMetric == null) {
+            if (styleMetrics.size() >= MAX_STYLES_COUNT) {
+                styleMetrics.clear();
+            }
+            styleMetric = new StyleMetric(createFont(textStyle));
+            StyleMetric existingMetric = styleMetrics.putIfAbsent(key, styleMetric);
+            if (existingMetric != null) {
+                styleMetric = existingMetric;
+            }
+        }
+        return styleMetric;
+    }
+
     @Override
     public TextMetric getTextMetric(TextStyle textStyle) {
-        return new TextMetric() {
-            FontMetrics fm = Toolkit.getDefaultToolkit().getFontMetrics(getFont(textStyle));
-            @Override
-            public int ascent() {
-                return fm.getAscent();
-            }
+        return getStyleMetric(textStyle);
+    }
+
+    /**
+     * Metrics are shared by all contexts so all contexts are equal
+     */
+    @Override
+    public boolean equals(Object obj) {
+        return obj != null && obj.getClass() == getClass();
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    static class StyleMetric implements TextMetric {
+        private static final char FIRST_ASCII = 32;
+        private static final char LAST_ASCII = 126;
+        private static final int MAX_WIDTHS_COUNT = 1000;
 
-            @Override
-            public int descent() {
-                return fm.getDescent();
+        private final Font font;
+        private final FontMetrics fm;
+        private final int ascent;
+        private final int descent;
+        private final int height;
+        private final int[] asciiAdvances = new int[LAST_ASCII + 1];
+        private final Map<String, Integer> widths = new ConcurrentHashMap<>();
+
+        StyleMetric(Font font) {
+            this.font = font;
+            fm = Toolkit.getDefaultToolkit().getFontMetrics(font);
+            ascent = fm.getAscent();
+            descent = fm.getDescent();
+            height = fm.getHeight();
+            for (char c = FIRST_ASCII; c <= LAST_ASCII; c++) {
+                asciiAdvances[c] = fm.charWidth(c);
             }
+        }
+
+        @Override
+        public int ascent() {
+            return ascent;
+        }
+
+        @Override
+        public int descent() {
+            return descent;
+        }
 
-            @Override
-            public int height() {
-                return fm.getHeight();
+        @Override
+        public int height() {
+            return height;
+        }
+
+        @Override
+        public int stringWidth(String str) {
+            if (str == null) {
+                return 0;
+            }
+            int width = 0;
+            for (int i = 0; i < str.length(); i++) {
+                char c = str.charAt(i);
+                if (c < FIRST_ASCII || c > LAST_ASCII) {
+                    return otherStringWidth(str);
+                }
+                width += asciiAdvances[c];
             }
+            return width;
+        }
 
-            @Override
-            public int stringWidth(String str) {
-                if (str != null) {
-                    return fm.stringWidth(str);
+        private int otherStringWidth(String str) {
+            Integer width = widths.get(str);
+            if (width == null) {
+                if (widths.size() >= MAX_WIDTHS_COUNT) {
+                    widths.clear();
                 }
-                return 0;
+                width = fm.stringWidth(str);
+                widths.put(str, width);
             }
-        };
+            return width;
+        }
     }
 }
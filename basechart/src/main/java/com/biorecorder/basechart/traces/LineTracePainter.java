@@ -12,6 +12,14 @@ import com.biorecorder.basechart.scales.Scale;
  */
 public class LineTracePainter implements TracePainter {
     private LineTraceConfig traceConfig;
+    // kept between frames so that drawing of traces does not allocate.
+    // Traces may be drawn in parallel so every thread has its own buffers
+    private final ThreadLocal<Buffers> threadBuffers = new ThreadLocal<Buffers>() {
+        @Override
+        protected Buffers initialValue() {
+            return new Buffers();
+        }
+    };
 
     public LineTracePainter() {
         this(new LineTraceConfig());
@@ -90,93 +98,208 @@ public class LineTracePainter implements TracePainter {
             return;
         }
 
-        BPath path = null;
+        BPolyline line = null;
+        Buffers buffers = threadBuffers.get();
         canvas.setStroke(traceConfig.getLineWidth(), traceConfig.getLineDashStyle());
         BColor lineColor = traceColor;
         BColor markColor = traceColor;
         if(traceConfig.getMode() == LineTraceConfig.LINEAR) {
-            path = drawLinearPath(canvas, xyData, xScale, yScale, lineColor, markColor);
+            line = drawLinearPath(canvas, buffers, xyData, xScale, yScale, lineColor, markColor);
         }
         if(traceConfig.getMode() == LineTraceConfig.STEP) {
-            path = drawStepPath(canvas, xyData, xScale, yScale, lineColor, markColor);
+            line = drawStepPath(canvas, buffers, xyData, xScale, yScale, lineColor, markColor);
         }
         if(traceConfig.getMode() == LineTraceConfig.VERTICAL_LINES) {
-            path = drawVerticalLinesPath(canvas, xyData, xScale, yScale, lineColor, markColor);
+            drawVerticalLinesPath(canvas, buffers, xyData, xScale, yScale, lineColor, markColor);
         }
 
-        if(path != null && traceConfig.isFilled()) {
+        if(line != null && traceConfig.isFilled()) {
             int x_0 = (int) xScale.scale(xyData.getX(0));
             int x_last = (int) xScale.scale(xyData.getX(xyData.size() - 1));
-            path.lineTo(x_last, (int)yScale.getStart());
-            path.lineTo(x_0, (int)yScale.getStart());
-            path.close();
+            line.add(x_last, (int)yScale.getStart());
+            line.add(x_0, (int)yScale.getStart());
             canvas.setColor(getFillColor(traceColor));
-            canvas.fillPath(path);
+            canvas.fillPolygon(line.getXs(), line.getYs(), line.size());
         }
     }
 
-    private BPath drawLinearPath(BCanvas canvas, XYViewer xyData, Scale xScale, Scale yScale, BColor lineColor, BColor markColor) {
-        BPath path = canvas.getEmptyPath();
+    /**
+     * Consecutive points mapped to the same pixel column are collapsed
+     * to first, min, max and last ones, so the path has no more than 4 points
+     * per pixel column no matter how many data points there are
+     */
+    private BPolyline drawLinearPath(BCanvas canvas, Buffers buffers, XYViewer xyData, Scale xScale, Scale yScale, BColor lineColor, BColor markColor) {
+        BPolyline polyline = buffers.polyline;
+        BPolyline marks = buffers.marks;
+        polyline.clear();
+        marks.clear();
         int x = (int) xScale.scale(xyData.getX(0));
         int y = (int) yScale.scale(xyData.getY(0));
-        path.moveTo(x, y);
-        canvas.setColor(markColor);
+        polyline.add(x, y);
         int pointRadius = traceConfig.getMarkSize() / 2;
-        canvas.fillOval(x - pointRadius, y - pointRadius, 2 * pointRadius,2 * pointRadius);
+        boolean isMarkDrawn = pointRadius > 0;
+        if(isMarkDrawn) {
+            marks.add(x - pointRadius, y - pointRadius);
+        }
+        PixelColumn pixelColumn = buffers.pixelColumn;
+        pixelColumn.start(x, y);
         for (int i = 1; i < xyData.size(); i++) {
+            int x_prev = x;
+            int y_prev = y;
             x = (int) xScale.scale(xyData.getX(i));
             y = (int) yScale.scale(xyData.getY(i));
-            path.lineTo(x, y);
-            canvas.fillOval(x - pointRadius,y - pointRadius, 2 * pointRadius,2 * pointRadius);
+            if(x == pixelColumn.x) {
+                pixelColumn.add(y);
+            } else {
+                pixelColumn.addTo(polyline);
+                pixelColumn.reset(x, y);
+            }
+            // marks of the points mapped to the same pixel are drawn only once
+            if(isMarkDrawn && (x != x_prev || y != y_prev)) {
+                marks.add(x - pointRadius, y - pointRadius);
+            }
         }
+        pixelColumn.addTo(polyline);
+        drawMarks(canvas, marks, markColor, pointRadius);
         canvas.setColor(lineColor);
-        canvas.drawPath(path);
-        return path;
+        canvas.drawPolyline(polyline.getXs(), polyline.getYs(), polyline.size());
+        return polyline;
     }
 
-    private BPath drawStepPath(BCanvas canvas, XYViewer xyData, Scale xScale,  Scale yScale, BColor lineColor, BColor markColor) {
-        BPath path = canvas.getEmptyPath();
+    private BPolyline drawStepPath(BCanvas canvas, Buffers buffers, XYViewer xyData, Scale xScale,  Scale yScale, BColor lineColor, BColor markColor) {
+        BPolyline polyline = buffers.polyline;
+        BPolyline marks = buffers.marks;
+        polyline.clear();
+        marks.clear();
         int x = (int) xScale.scale(xyData.getX(0));
         int y = (int) yScale.scale(xyData.getY(0));
-        path.moveTo(x, y);
-        canvas.setColor(markColor);
+        polyline.add(x, y);
         int pointRadius = traceConfig.getMarkSize()/ 2;
-        canvas.fillOval(x - pointRadius, y - pointRadius, 2 * pointRadius,2 * pointRadius);
+        boolean isMarkDrawn = pointRadius > 0;
+        if(isMarkDrawn) {
+            marks.add(x - pointRadius, y - pointRadius);
+        }
         for (int i = 1; i < xyData.size(); i++) {
             x = (int) xScale.scale(xyData.getX(i));
-            path.lineTo(x, y);
+            polyline.add(x, y);
             y = (int) yScale.scale(xyData.getY(i));
-            path.lineTo(x, y);
-            canvas.fillOval(x - pointRadius,y - pointRadius, 2 * pointRadius,2 * pointRadius);
+            polyline.add(x, y);
+            if(isMarkDrawn) {
+                marks.add(x - pointRadius, y - pointRadius);
+            }
         }
+        drawMarks(canvas, marks, markColor, pointRadius);
         canvas.setColor(lineColor);
-        canvas.drawPath(path);
-        return path;
+        canvas.drawPolyline(polyline.getXs(), polyline.getYs(), polyline.size());
+        return polyline;
     }
 
-    private BPath drawVerticalLinesPath(BCanvas canvas, XYViewer xyData, Scale xScale,  Scale yScale, BColor lineColor, BColor markColor) {
+    private void drawVerticalLinesPath(BCanvas canvas, Buffers buffers, XYViewer xyData, Scale xScale,  Scale yScale, BColor lineColor, BColor markColor) {
+        BPolyline lineSegments = buffers.lineSegments;
+        BPolyline marks = buffers.marks;
+        lineSegments.clear();
+        marks.clear();
         int x = (int) xScale.scale(xyData.getX(0));
         int y = (int) yScale.scale(xyData.getY(0));
         int pointRadius = traceConfig.getMarkSize() / 2;
-        canvas.fillOval(x - pointRadius, y - pointRadius, 2 * pointRadius,2 * pointRadius);
+        boolean isMarkDrawn = pointRadius > 0;
+        if(isMarkDrawn) {
+            marks.add(x - pointRadius, y - pointRadius);
+        }
         VerticalLine vLine = new VerticalLine(y);
         for (int i = 1; i < xyData.size(); i++) {
             int x_prev = x;
             x = (int) xScale.scale(xyData.getX(i));
             // draw horizontal lines to avoid line breaking
-            canvas.setColor(lineColor);
             if(x > x_prev + 1) {
                 vLine.setNewBounds(y);
-                canvas.drawLine(x_prev, y, x, y);
+                lineSegments.add(x_prev, y);
+                lineSegments.add(x, y);
             }
             y = (int) yScale.scale(xyData.getY(i));
             vLine.setNewBounds(y);
             // draw vertical line
-            canvas.drawLine(x, vLine.min, x, vLine.max);
+            lineSegments.add(x, vLine.min);
+            lineSegments.add(x, vLine.max);
+            if(isMarkDrawn) {
+                marks.add(x - pointRadius, y - pointRadius);
+            }
+        }
+        canvas.setColor(lineColor);
+        canvas.drawLines(lineSegments.getXs(), lineSegments.getYs(), lineSegments.size());
+        drawMarks(canvas, marks, markColor, pointRadius);
+    }
+
+    private void drawMarks(BCanvas canvas, BPolyline marks, BColor markColor, int pointRadius) {
+        if(marks.size() > 0) {
             canvas.setColor(markColor);
-            canvas.fillOval(x - pointRadius,y - pointRadius, 2 * pointRadius,2 * pointRadius);
+            canvas.fillOvals(marks.getXs(), marks.getYs(), marks.size(), 2 * pointRadius, 2 * pointRadius);
+        }
+    }
+
+    static class Buffers {
+        final BPolyline polyline = new BPolyline();
+        // top left corners of the marks
+        final BPolyline marks = new BPolyline();
+        // pairs of line segments ends
+        final BPolyline lineSegments = new BPolyline();
+        final PixelColumn pixelColumn = new PixelColumn();
+    }
+
+    static class PixelColumn {
+        int x;
+        int first;
+        int min;
+        int max;
+        int last;
+        boolean isMinBeforeMax;
+        // the last point added to the path
+        int pathX;
+        int pathY;
+
+        void start(int x, int y) {
+            reset(x, y);
+            pathX = x;
+            pathY = y;
+        }
+
+        void reset(int x, int y) {
+            this.x = x;
+            first = min = max = last = y;
+            isMinBeforeMax = true;
+        }
+
+        void add(int y) {
+            if(y < min) {
+                min = y;
+                isMinBeforeMax = false;
+            }
+            if(y > max) {
+                max = y;
+                isMinBeforeMax = true;
+            }
+            last = y;
+        }
+
+        void addTo(BPolyline polyline) {
+            lineTo(polyline, first);
+            if(isMinBeforeMax) {
+                lineTo(polyline, min);
+                lineTo(polyline, max);
+            } else {
+                lineTo(polyline, max);
+                lineTo(polyline, min);
+            }
+            lineTo(polyline, last);
+        }
+
+        private void lineTo(BPolyline polyline, int y) {
+            if(x != pathX || y != pathY) {
+                polyline.add(x, y);
+                pathX = x;
+                pathY = y;
+            }
         }
-        return null;
     }
 
     class VerticalLine {
@@ -37,5 +37,9 @@ public interface TracePainter {
 
       NamedValue[] tracePointValues(ChartData data, int dataIndex, int trace, Scale xtScale, Scale yScale);
 
+      /**
+       * When parallel rendering is enabled different traces may be drawn
+       * at the same time by different threads (every one on its own canvas)
+       */
       void drawTrace(BCanvas canvas, ChartData data, int trace, BColor traceColor, int traceCount, boolean isSplit,  Scale xScale, Scale yScale);
 }
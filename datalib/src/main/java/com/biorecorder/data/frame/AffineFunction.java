@@ -0,0 +1,45 @@
+package com.biorecorder.data.frame;
+
+/**
+ * Linear transformation: gain * value + offset
+ * (calibration of raw ADC values, unit conversion, inversion and so on).
+ * Composition of affine functions is affine too, so chains of them are
+ * calculated in closed form.
+ */
+public class AffineFunction implements Function {
+    private final double gain;
+    private final double offset;
+
+    public AffineFunction(double gain, double offset) {
+        this.gain = gain;
+        this.offset = offset;
+    }
+
+    public double getGain() {
+        return gain;
+    }
+
+    public double getOffset() {
+        return offset;
+    }
+
+    @Override
+    public double apply(double value) {
+        return gain * value + offset;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (!(o instanceof AffineFunction)) {
+            return false;
+        }
+        AffineFunction affineFunction = (AffineFunction) o;
+        return gain == affineFunction.gain && offset == affineFunction.offset;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(gain) + Double.hashCode(offset);
+    }
+}
@@ -11,12 +11,41 @@ public enum Aggregation {
     MIN("Min"),
     MAX("Max"),
     FIRST("First"),
-    LAST("Last");
+    LAST("Last"),
+    VARIANCE("Variance"),
+    STDDEV("StdDev"),
+    RMS("Rms"),
+    MEDIAN("Median", 0.5),
+    PERCENTILE_5("Percentile5", 0.05),
+    PERCENTILE_25("Percentile25", 0.25),
+    PERCENTILE_75("Percentile75", 0.75),
+    PERCENTILE_95("Percentile95", 0.95);
 
     private String functionName;
+    private double quantile;
 
     Aggregation(String functionName) {
+        this(functionName, Double.NaN);
+    }
+
+    Aggregation(String functionName, double quantile) {
         this.functionName = functionName;
+        this.quantile = quantile;
+    }
+
+    /**
+     * Quantile aggregations are calculated approximately
+     * by bounded memory sketches (see {@link QuantileSketch})
+     */
+    public boolean isQuantile() {
+        return !Double.isNaN(quantile);
+    }
+
+    /**
+     * @return quantile in the range [0, 1] for quantile aggregations and NaN for others
+     */
+    public double quantile() {
+        return quantile;
     }
 
     @Override
@@ -29,8 +29,22 @@ public interface Column {
 
     int bisect(double value, int from, int length);
 
+    /**
+     * Batched version of {@link #bisect(double, int, int)}. The column data
+     * and the searched values must be sorted! Resolves all values in one forward pass
+     * and puts the found index of every value into resultIndexes.
+     */
+    void bisect(double[] sortedValues, int from, int length, int[] resultIndexes);
+
     Stats stats(int length);
 
+    /**
+     * Builds (lazily and incrementally) the prefix sums index of the column so that
+     * SUM and AVERAGE of any group are calculated in O(1) instead of scanning the group.
+     * Offset views of the column share its index.
+     */
+    void enablePrefixSums();
+
     /**
      * Equal Width Binning. This method divides the entire range of column data (max - min)
      * into intervals of equal size, searches the intervalStart indexes for every such
@@ -41,6 +55,14 @@ public interface Column {
 
     IntSequence group(TimeInterval timeInterval, DynamicSize length);
 
+    /**
+     * Custom Edges Binning. Every edge value is the lower boundary of its bin:
+     * bin i contains elements from edges[i] (inclusive) to edges[i+1] (exclusive),
+     * elements less than the first edge are not grouped and empty bins are skipped.
+     * Edges are resolved by the batched bisect. The column data must be sorted!!!
+     */
+    IntSequence group(double[] edges, DynamicSize length);
+
     Column resample(Aggregation aggregation, IntSequence groupIndexes, boolean isDataAppendMode);
     Column resample(Aggregation aggregation, int points, boolean isDataAppendMode);
 
@@ -0,0 +1,66 @@
+package com.biorecorder.data.frame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Chain of functions applied one after another.
+ * Use {@link Function#andThen(Function)} to create it.
+ */
+class ComposedFunction implements Function {
+    private final Function[] functions;
+
+    private ComposedFunction(Function[] functions) {
+        this.functions = functions;
+    }
+
+    static Function compose(Function first, Function second) {
+        List<Function> chain = new ArrayList<>();
+        addToChain(chain, first);
+        addToChain(chain, second);
+        if (chain.size() == 1) {
+            return chain.get(0);
+        }
+        return new ComposedFunction(chain.toArray(new Function[chain.size()]));
+    }
+
+    private static void addToChain(List<Function> chain, Function function) {
+        if (function instanceof ComposedFunction) {
+            for (Function f : ((ComposedFunction) function).functions) {
+                addToChain(chain, f);
+            }
+            return;
+        }
+        int last = chain.size() - 1;
+        if (function instanceof AffineFunction && last >= 0 && chain.get(last) instanceof AffineFunction) {
+            AffineFunction f1 = (AffineFunction) chain.get(last);
+            AffineFunction f2 = (AffineFunction) function;
+            chain.set(last, new AffineFunction(f2.getGain() * f1.getGain(), f2.getGain() * f1.getOffset() + f2.getOffset()));
+            return;
+        }
+        chain.add(function);
+    }
+
+    @Override
+    public double apply(double value) {
+        for (Function function : functions) {
+            value = function.apply(value);
+        }
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (!(o instanceof ComposedFunction)) {
+            return false;
+        }
+        return Arrays.equals(functions, ((ComposedFunction) o).functions);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(functions);
+    }
+}
@@ -16,7 +16,9 @@ public class DataFrame {
     protected List<Column> columns = new ArrayList<>();
     protected List<String> columnNames = new ArrayList<>();
     protected List<Aggregation[]> columnAggFunctions = new ArrayList<>();
-    private Map<Integer, FunctionColumnInfo> columnNumberToFunctionInfo = new HashMap<>();
+    // sorted, so function columns are always recreated after their argument columns
+    private Map<Integer, FunctionColumnInfo> columnNumberToFunctionInfo = new TreeMap<>();
+    private Map<Integer, int[]> columnNumberToArgColumns = new HashMap<>();
 
     boolean isDataAppendMode = true;
 
@@ -45,7 +47,27 @@ public class DataFrame {
                             " can not be added because it depends upon column that is not presented in the given columnOrder";
                     throw new IllegalArgumentException(errMsg);
                 }
-                columnNumberToFunctionInfo.put(i, new FunctionColumnInfo(functionColumnInfo.function, argColumnNumber));
+                columnNumberToFunctionInfo.put(i, new FunctionColumnInfo(functionColumnInfo.function, argColumnNumber, functionColumnInfo.maxCachedBytes));
+            }
+            int[] argColumnNumbers = dataFrame.columnNumberToArgColumns.get(originalColumnNumber);
+            if (argColumnNumbers != null) {
+                // if some argument columns are not in the columnOrder the column
+                // is not tracked as it does not depend upon the columns of this frame
+                int[] newArgColumnNumbers = new int[argColumnNumbers.length];
+                boolean isTracked = true;
+                for (int j = 0; j < argColumnNumbers.length && isTracked; j++) {
+                    newArgColumnNumbers[j] = -1;
+                    for (int k = 0; k < columnOrder.length; k++) {
+                        if (argColumnNumbers[j] == columnOrder[k]) {
+                            newArgColumnNumbers[j] = k;
+                            break;
+                        }
+                    }
+                    isTracked = newArgColumnNumbers[j] >= 0;
+                }
+                if (isTracked) {
+                    columnNumberToArgColumns.put(i, newArgColumnNumbers);
+                }
             }
             columns.add(columnToAdd);
             columnNames.add(dataFrame.columnNames.get(originalColumnNumber));
@@ -61,15 +83,43 @@ public class DataFrame {
                 throw new IllegalArgumentException(errMsg);
             }
         }
-        if (columnNumberToFunctionInfo.get(columnNumber) != null) {
-            columnNumberToFunctionInfo.remove(columnNumber);
+        for (Integer key : columnNumberToArgColumns.keySet()) {
+            for (int argColumnNumber : columnNumberToArgColumns.get(key)) {
+                if (argColumnNumber == columnNumber) {
+                    String errMsg = "Column: " + columnNumber + " is used by column: " + key + " and can not be removed";
+                    throw new IllegalArgumentException(errMsg);
+                }
+            }
+        }
+        columnNumberToFunctionInfo.remove(columnNumber);
+        columnNumberToArgColumns.remove(columnNumber);
+        // renumber dependencies like the columns list
+        Map<Integer, FunctionColumnInfo> functionInfos = new TreeMap<>();
+        for (Integer key : columnNumberToFunctionInfo.keySet()) {
+            FunctionColumnInfo info = columnNumberToFunctionInfo.get(key);
+            int argColumnNumber = numberAfterRemoval(info.argColumnNumber, columnNumber);
+            functionInfos.put(numberAfterRemoval(key, columnNumber), new FunctionColumnInfo(info.function, argColumnNumber, info.maxCachedBytes));
+        }
+        columnNumberToFunctionInfo = functionInfos;
+        Map<Integer, int[]> argColumns = new HashMap<>();
+        for (Integer key : columnNumberToArgColumns.keySet()) {
+            int[] argColumnNumbers = columnNumberToArgColumns.get(key).clone();
+            for (int j = 0; j < argColumnNumbers.length; j++) {
+                argColumnNumbers[j] = numberAfterRemoval(argColumnNumbers[j], columnNumber);
+            }
+            argColumns.put(numberAfterRemoval(key, columnNumber), argColumnNumbers);
         }
+        columnNumberToArgColumns = argColumns;
         columns.remove(columnNumber);
         columnNames.remove(columnNumber);
         columnAggFunctions.remove(columnNumber);
         appendData();
     }
 
+    private static int numberAfterRemoval(int number, int removedNumber) {
+        return number > removedNumber ? number - 1 : number;
+    }
+
     private void addColumn(String name, Column column) {
         columns.add(column);
         columnNames.add(name);
@@ -79,19 +129,108 @@ public class DataFrame {
     }
 
     public void addColumn(String name, Function function, int argColumnNumber) {
+        addColumn(name, function, argColumnNumber, 0);
+    }
+
+    /**
+     * If the argument column is a not memoized function column its function
+     * and the given one are fused into a single composition over its argument column.
+     * Memoized function columns are not fused, so their cached values are used.
+     *
+     * @param maxCachedBytes memory budget to memoize calculated function values. 0 - no memoization
+     */
+    public void addColumn(String name, Function function, int argColumnNumber, long maxCachedBytes) {
         if (columns.get(argColumnNumber).dataType() == DataType.String) {
             String errMsg = "Function column may not depend upon String column";
             throw new IllegalArgumentException(errMsg);
 
         }
-        for (Integer key : columnNumberToFunctionInfo.keySet()) {
-            if (key == argColumnNumber) {
-                String errMsg = "Column: " + argColumnNumber + " is a function column and may not be used as argument for another function column";
+        FunctionColumnInfo argFunctionInfo = columnNumberToFunctionInfo.get(argColumnNumber);
+        if (argFunctionInfo != null && !argFunctionInfo.isCached()) {
+            function = argFunctionInfo.function.andThen(function);
+            argColumnNumber = argFunctionInfo.argColumnNumber;
+        }
+        FunctionColumnInfo functionColumnInfo = new FunctionColumnInfo(function, argColumnNumber, maxCachedBytes);
+        columnNumberToFunctionInfo.put(columns.size(), functionColumnInfo);
+        addColumn(name, functionColumnInfo.createColumn(columns));
+    }
+
+    public void addColumn(String name, Expression expression, int[] argColumnNumbers) {
+        addColumn(name, expression, argColumnNumbers, 0);
+    }
+
+    /**
+     * Adds column calculated by the given expression from the argument columns
+     * (that may be function or expression columns too). Unlike function columns
+     * expression columns are resampled as ordinary ones, i.e. aggregated after evaluation.
+     * <p>
+     * To build average reference montage add common average column
+     * (with {@link Expression#AVERAGE} over all channels) once and then
+     * add {@link Expression#DIFFERENCE} columns over every channel and that common column.
+     * Expression columns always memoize some recently evaluated blocks,
+     * so the common column is not evaluated again for every channel.
+     *
+     * @param maxCachedBytes memory budget to memoize evaluated values
+     */
+    public void addColumn(String name, Expression expression, int[] argColumnNumbers, long maxCachedBytes) {
+        if (argColumnNumbers.length == 0) {
+            String errMsg = "Expression column must have at least one argument column";
+            throw new IllegalArgumentException(errMsg);
+        }
+        Column[] argColumns = new Column[argColumnNumbers.length];
+        for (int i = 0; i < argColumnNumbers.length; i++) {
+            argColumns[i] = columns.get(argColumnNumbers[i]);
+            if (argColumns[i].dataType() == DataType.String) {
+                String errMsg = "Expression column may not depend upon String column";
                 throw new IllegalArgumentException(errMsg);
             }
         }
-        columnNumberToFunctionInfo.put(columns.size(), new FunctionColumnInfo(function, argColumnNumber));
-        addColumn(name, ColumnFactory.createColumn(function, columns.get(argColumnNumber)));
+        columnNumberToArgColumns.put(columns.size(), Arrays.copyOf(argColumnNumbers, argColumnNumbers.length));
+        addColumn(name, ColumnFactory.createColumn(expression, argColumns, maxCachedBytes));
+    }
+
+    /**
+     * Adds column of the argument column values filtered by the given IIR filter.
+     * Filtered column is resampled as ordinary one (aggregated after filtering)
+     *
+     * @param maxCachedBytes memory budget to memoize filtered values. 0 - no memoization
+     */
+    public void addColumn(String name, IirFilter filter, int argColumnNumber, long maxCachedBytes) {
+        checkNumericArgColumn(argColumnNumber);
+        columnNumberToArgColumns.put(columns.size(), new int[] {argColumnNumber});
+        addColumn(name, ColumnFactory.createColumn(filter, columns.get(argColumnNumber), maxCachedBytes));
+    }
+
+    /**
+     * Adds column of the argument column values filtered by the given FIR filter.
+     * Filtered column is resampled as ordinary one (aggregated after filtering)
+     *
+     * @param maxCachedBytes memory budget to memoize filtered values. 0 - no memoization
+     */
+    public void addColumn(String name, FirFilter filter, int argColumnNumber, long maxCachedBytes) {
+        checkNumericArgColumn(argColumnNumber);
+        columnNumberToArgColumns.put(columns.size(), new int[] {argColumnNumber});
+        addColumn(name, ColumnFactory.createColumn(filter, columns.get(argColumnNumber), maxCachedBytes));
+    }
+
+    /**
+     * Adds column of the argument column values aggregated over the sliding window
+     * of the given number of samples (moving average, EMG rms envelope and so on).
+     * Rolling column is resampled as ordinary one
+     *
+     * @param maxCachedBytes memory budget to memoize calculated values. 0 - no memoization
+     */
+    public void addColumn(String name, RollingAggregation aggregation, int windowSize, int argColumnNumber, long maxCachedBytes) {
+        checkNumericArgColumn(argColumnNumber);
+        columnNumberToArgColumns.put(columns.size(), new int[] {argColumnNumber});
+        addColumn(name, ColumnFactory.createColumn(aggregation, windowSize, columns.get(argColumnNumber), maxCachedBytes));
+    }
+
+    private void checkNumericArgColumn(int argColumnNumber) {
+        if (columns.get(argColumnNumber).dataType() == DataType.String) {
+            String errMsg = "Column: " + argColumnNumber + " is a String column and may not be used as argument";
+            throw new IllegalArgumentException(errMsg);
+        }
     }
 
     public void addColumn(String name, double start, double step) {
@@ -193,7 +332,7 @@ public class DataFrame {
     }
 
     public void addColumn(String name, StringSequence data) {
-        addColumn(name, ColumnFactory.createColumn(data));
+        addColumn(name, ColumnFactory.createColumn(data, isDataAppendMode));
     }
 
     public void addColumn(String name, List<String> data) {
@@ -271,6 +410,15 @@ public class DataFrame {
         return columns.get(columnNumber).stats(length);
     }
 
+    /**
+     * Enables the prefix sums index of the column. Then SUM and AVERAGE
+     * of every group are calculated in O(1) when the data frame (or its views) is resampled,
+     * so the resampling costs O(groups) no matter how many rows every group contains.
+     */
+    public void enablePrefixSums(int columnNumber) {
+        columns.get(columnNumber).enablePrefixSums();
+    }
+
     public boolean isColumnRegular(int columnNumber) {
         return columns.get(columnNumber) instanceof RegularColumn;
     }
@@ -308,6 +456,115 @@ public class DataFrame {
         return column.bisect(value, 0, length1);
     }
 
+    /**
+     * Batched version of {@link #bisect(int, double, int[])} for many values at once.
+     * The values must be sorted! The found index of every value is put into resultIndexes.
+     */
+    public void bisect(int columnNumber, double[] sortedValues, int[] sorter, int[] resultIndexes) {
+        Column column = columns.get(columnNumber);
+        if (sorter != null) {
+            column = column.view(sorter);
+        }
+        int length1 = length;
+        if (sorter != null) {
+            length1 = Math.min(length, sorter.length);
+        }
+        column.bisect(sortedValues, 0, length1, resultIndexes);
+    }
+
+    /**
+     * Joins regularly sampled signals with different sample rates onto
+     * the common time axis with the highest rate and the earliest start.
+     *
+     * @see #align(double, double, Interpolation, DataFrame...)
+     */
+    public static DataFrame align(Interpolation interpolation, DataFrame... frames) {
+        double start = Double.MAX_VALUE;
+        double step = Double.MAX_VALUE;
+        for (DataFrame frame : frames) {
+            RegularColumn timeColumn = regularTimeColumn(frame);
+            start = Math.min(start, timeColumn.start());
+            step = Math.min(step, timeColumn.step());
+        }
+        return align(start, step, interpolation, frames);
+    }
+
+    /**
+     * Joins regularly sampled signals with different sample rates
+     * (like EDF signals: EEG 256 Hz, SpO2 1 Hz) onto the common time axis
+     * without resampling them in memory. Column 0 of every given frame must be
+     * a regular time column. Resultant frame has the regular column 0 (start, step)
+     * and all other columns of the given frames. Their values are calculated
+     * on the fly by the given interpolation.
+     */
+    public static DataFrame align(double start, double step, Interpolation interpolation, DataFrame... frames) {
+        if (step <= 0) {
+            String errMsg = "Step = " + step + " Expected > 0";
+            throw new IllegalArgumentException(errMsg);
+        }
+        boolean isAppendMode = false;
+        for (DataFrame frame : frames) {
+            isAppendMode = isAppendMode || frame.isDataAppendMode;
+        }
+        DataFrame resultantFrame = new DataFrame(isAppendMode);
+        resultantFrame.columns.add(ColumnFactory.createColumn(start, step));
+        resultantFrame.columnNames.add(frames.length > 0 ? frames[0].columnNames.get(0) : "time");
+        resultantFrame.columnAggFunctions.add(frames.length > 0 ? frames[0].columnAggFunctions.get(0) : new Aggregation[0]);
+        for (DataFrame frame : frames) {
+            RegularColumn timeColumn = regularTimeColumn(frame);
+            for (int i = 1; i < frame.columns.size(); i++) {
+                Column column = frame.columns.get(i);
+                if (column.dataType() == DataType.String) {
+                    String errMsg = "String column: " + frame.columnNames.get(i) + " can not be aligned";
+                    throw new IllegalArgumentException(errMsg);
+                }
+                resultantFrame.columns.add(ColumnFactory.createAlignedColumn(column, timeColumn.start(), timeColumn.step(), start, step, interpolation));
+                resultantFrame.columnNames.add(frame.columnNames.get(i));
+                resultantFrame.columnAggFunctions.add(frame.columnAggFunctions.get(i));
+            }
+        }
+        resultantFrame.appendData();
+        return resultantFrame;
+    }
+
+    private static RegularColumn regularTimeColumn(DataFrame frame) {
+        if (frame.columns.size() == 0 || !(frame.columns.get(0) instanceof RegularColumn)) {
+            String errMsg = "Column 0 must be a regular time column";
+            throw new IllegalArgumentException(errMsg);
+        }
+        return (RegularColumn) frame.columns.get(0);
+    }
+
+    /**
+     * Converts regularly sampled data to the new sample rate: rate * upFactor / downFactor
+     * by polyphase filtering. Unlike resampling with AVERAGE aggregation
+     * it suppresses aliasing. Column 0 must be a regular time column. Resultant frame
+     * has the regular column 0 with the same start and the new step, other columns
+     * are converted lazily by blocks.
+     *
+     * @param maxCachedBytes memory budget to memoize converted values of every column. 0 - no memoization
+     */
+    public DataFrame convertRate(int upFactor, int downFactor, long maxCachedBytes) {
+        RegularColumn timeColumn = regularTimeColumn(this);
+        RateConverter converter = new RateConverter(upFactor, downFactor);
+        DataFrame resultantFrame = new DataFrame(isDataAppendMode);
+        double step = timeColumn.step() * converter.getDownFactor() / converter.getUpFactor();
+        resultantFrame.columns.add(ColumnFactory.createColumn(timeColumn.start(), step));
+        resultantFrame.columnNames.add(columnNames.get(0));
+        resultantFrame.columnAggFunctions.add(columnAggFunctions.get(0));
+        for (int i = 1; i < columns.size(); i++) {
+            if (columns.get(i).dataType() == DataType.String) {
+                String errMsg = "String column: " + columnNames.get(i) + " can not be converted to another rate";
+                throw new IllegalArgumentException(errMsg);
+            }
+            resultantFrame.columns.add(ColumnFactory.createColumn(converter, columns.get(i), maxCachedBytes));
+            resultantFrame.columnNames.add(columnNames.get(i));
+            resultantFrame.columnAggFunctions.add(columnAggFunctions.get(i));
+        }
+        resultantFrame.appendData();
+        return resultantFrame;
+    }
+
     public DataFrame concat(DataFrame dataFrame) {
         int cols = Math.min(columns.size(), dataFrame.columns.size());
         DataFrame resultantFrame = new DataFrame(dataFrame.isDataAppendMode);
@@ -326,8 +583,12 @@ public class DataFrame {
         for (Integer key : resultantFrame.columnNumberToFunctionInfo.keySet()) {
             // create and put new Function columns
             FunctionColumnInfo functionColumnInfo = resultantFrame.columnNumberToFunctionInfo.get(key);
-            Column functionColumn = ColumnFactory.createColumn(functionColumnInfo.function, resultantFrame.columns.get(functionColumnInfo.argColumnNumber));
-            resultantFrame.columns.set(key, functionColumn);
+            resultantFrame.columns.set(key, functionColumnInfo.createColumn(resultantFrame.columns));
+        }
+        for (Integer key : columnNumberToArgColumns.keySet()) {
+            if (key < cols && isAllLess(columnNumberToArgColumns.get(key), cols)) {
+                resultantFrame.columnNumberToArgColumns.put(key, columnNumberToArgColumns.get(key));
+            }
         }
         resultantFrame.appendData();
 
@@ -335,6 +596,15 @@ public class DataFrame {
     }
 
 
+    private static boolean isAllLess(int[] numbers, int limit) {
+        for (int number : numbers) {
+            if (number >= limit) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * This method returns a sorted view of the data frame
      * without modifying the order of the underlying data.
@@ -388,10 +658,10 @@ public class DataFrame {
         for (Integer key : columnNumberToFunctionInfo.keySet()) {
             // create and put new Function columns
             FunctionColumnInfo functionColumnInfo = columnNumberToFunctionInfo.get(key);
-            Column functionColumn = ColumnFactory.createColumn(functionColumnInfo.function, resultantFrame.columns.get(functionColumnInfo.argColumnNumber));
-            resultantFrame.columns.set(key, functionColumn);
+            resultantFrame.columns.set(key, functionColumnInfo.createColumn(resultantFrame.columns));
             resultantFrame.columnNumberToFunctionInfo.put(key, columnNumberToFunctionInfo.get(key));
         }
+        resultantFrame.columnNumberToArgColumns.putAll(columnNumberToArgColumns);
         resultantFrame.appendData();
         return resultantFrame;
     }
@@ -404,7 +674,7 @@ public class DataFrame {
         DataFrame resultantFrame = new DataFrame(appendMode);
         for (int i = 0; i < columns.size(); i++) {
             FunctionColumnInfo functionColumnInfo = columnNumberToFunctionInfo.get(i);
-            if (functionColumnInfo != null) { // if function column we temporary add null
+            if (functionColumnInfo != null && !functionColumnInfo.isCached()) { // if function column we temporary add null
                 resultantFrame.columns.add(null);
             } else {
                 if(length >= 0) {
@@ -419,10 +689,12 @@ public class DataFrame {
         for (Integer key : columnNumberToFunctionInfo.keySet()) {
             // create and put new Function columns
             FunctionColumnInfo functionColumnInfo = columnNumberToFunctionInfo.get(key);
-            Column functionColumn = ColumnFactory.createColumn(functionColumnInfo.function, resultantFrame.columns.get(functionColumnInfo.argColumnNumber));
-            resultantFrame.columns.set(key, functionColumn);
+            if (!functionColumnInfo.isCached()) { // cached columns are viewed to share memoized values
+                resultantFrame.columns.set(key, functionColumnInfo.createColumn(resultantFrame.columns));
+            }
             resultantFrame.columnNumberToFunctionInfo.put(key, columnNumberToFunctionInfo.get(key));
         }
+        resultantFrame.columnNumberToArgColumns.putAll(columnNumberToArgColumns);
         resultantFrame.appendData();
         return resultantFrame;
     }
@@ -439,7 +711,7 @@ public class DataFrame {
         DataFrame resultantFrame = new DataFrame(false);
         for (int i = 0; i < columns.size(); i++) {
             FunctionColumnInfo functionColumnInfo = columnNumberToFunctionInfo.get(i);
-            if (functionColumnInfo != null) { // if function column we temporary add null
+            if (functionColumnInfo != null && !functionColumnInfo.isCached()) { // if function column we temporary add null
                 resultantFrame.columns.add(null);
             } else {
                 resultantFrame.columns.add(columns.get(i).view(rowOrder));
@@ -450,10 +722,12 @@ public class DataFrame {
         for (Integer key : columnNumberToFunctionInfo.keySet()) {
             // create and put new Function columns
             FunctionColumnInfo functionColumnInfo = columnNumberToFunctionInfo.get(key);
-            Column functionColumn = ColumnFactory.createColumn(functionColumnInfo.function, resultantFrame.columns.get(functionColumnInfo.argColumnNumber));
-            resultantFrame.columns.set(key, functionColumn);
+            if (!functionColumnInfo.isCached()) { // cached columns are viewed to share memoized values
+                resultantFrame.columns.set(key, functionColumnInfo.createColumn(resultantFrame.columns));
+            }
             resultantFrame.columnNumberToFunctionInfo.put(key, columnNumberToFunctionInfo.get(key));
         }
+        resultantFrame.columnNumberToArgColumns.putAll(columnNumberToArgColumns);
         resultantFrame.appendData();
         return resultantFrame;
     }
@@ -529,6 +803,121 @@ public class DataFrame {
         return resample(groupIndexes, 1, isResultCachingEnabled);
     }
 
+    /**
+     * Custom Edges binning: edge values of every bin are specified.
+     * The edge value is the lower boundary of the bin.
+     * Rows with values less than the first edge are not grouped and empty bins are skipped.
+     * <p>
+     * Implementation of the method implies that the data is sorted!!!
+     */
+    public DataFrame resampleByCustomEdges(int columnNumber, double[] edges, boolean isResultCachingEnabled) {
+        IntSequence groupIndexes = columns.get(columnNumber).group(edges, new ColumnsMinSize());
+        return resample(groupIndexes, 1, isResultCachingEnabled);
+    }
+
+    /**
+     * Equal frequencies binning (quantiles): every bin has (approximately) equal number of rows.
+     * Unlike {@link #resampleByEqualPointsNumber(int, boolean)} equal values are never split
+     * between bins because the bins are defined by their edge values (see {@link #quantileEdges(int, int)}).
+     * Edges are calculated for the current data.
+     * <p>
+     * If the column is not sorted the rows are grouped in the order of the column values
+     * (the data frame is resampled through its sorted view, see {@link #sort(int)}).
+     */
+    public DataFrame resampleByEqualFrequency(int columnNumber, int bins, boolean isResultCachingEnabled) {
+        DataFrame sortedFrame = this;
+        if (length > 0 && !columns.get(columnNumber).stats(length).isIncreasing()) {
+            sortedFrame = sort(columnNumber);
+        }
+        return sortedFrame.resampleByCustomEdges(columnNumber, sortedFrame.quantileEdges(columnNumber, bins), isResultCachingEnabled);
+    }
+
+    /**
+     * Calculates edges of the given number of equal frequency bins: values with the ranks
+     * i * rowCount / bins (i = 0, 1, ..., bins - 1). For sorted data the edges are
+     * the values at those ranks. For unsorted data the ranks are found by selection (quickselect)
+     * in expected O(rowCount * log(bins)) time instead of full sorting.
+     */
+    public double[] quantileEdges(int columnNumber, int bins) {
+        if (bins < 1) {
+            String errMsg = "Bins = " + bins + " Expected > 0";
+            throw new IllegalArgumentException(errMsg);
+        }
+        if (length == 0) {
+            return new double[0];
+        }
+        Column column = columns.get(columnNumber);
+        int[] ranks = new int[bins];
+        for (int i = 0; i < bins; i++) {
+            ranks[i] = (int) ((long) i * length / bins);
+        }
+        double[] edges = new double[bins];
+        if (column.stats(length).isIncreasing()) {
+            for (int i = 0; i < bins; i++) {
+                edges[i] = column.value(ranks[i]);
+            }
+            return edges;
+        }
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = column.value(i);
+        }
+        select(values, 0, length, ranks, 0, bins);
+        for (int i = 0; i < bins; i++) {
+            edges[i] = values[ranks[i]];
+        }
+        return edges;
+    }
+
+    /**
+     * Multiple quickselect: rearranges values[from, to) so that values at the given
+     * sorted ranks (from ranks[rankFrom, rankTo)) are the same as in the sorted array
+     */
+    private static void select(double[] values, int from, int to, int[] ranks, int rankFrom, int rankTo) {
+        while (rankFrom < rankTo && to - from > 1) {
+            // median of three pivot
+            int middle = (from + to) >>> 1;
+            double a = values[from];
+            double b = values[middle];
+            double c = values[to - 1];
+            double pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+            // three way partition: [from, lt) < pivot, [lt, gt) == pivot, [gt, to) > pivot
+            int lt = from;
+            int gt = to;
+            int i = from;
+            while (i < gt) {
+                double value = values[i];
+                if (value < pivot) {
+                    values[i++] = values[lt];
+                    values[lt++] = value;
+                } else if (value > pivot) {
+                    values[i] = values[--gt];
+                    values[gt] = value;
+                } else {
+                    i++;
+                }
+            }
+            int leftRanksEnd = rankFrom;
+            while (leftRanksEnd < rankTo && ranks[leftRanksEnd] < lt) {
+                leftRanksEnd++;
+            }
+            int rightRanksStart = leftRanksEnd;
+            while (rightRanksStart < rankTo && ranks[rightRanksStart] < gt) {
+                rightRanksStart++;
+            }
+            // recurse into the smaller side, iterate over the other
+            if (leftRanksEnd - rankFrom < rankTo - rightRanksStart) {
+                select(values, from, lt, ranks, rankFrom, leftRanksEnd);
+                from = gt;
+                rankFrom = rightRanksStart;
+            } else {
+                select(values, gt, to, ranks, rightRanksStart, rankTo);
+                to = lt;
+                rankTo = leftRanksEnd;
+            }
+        }
+    }
+
     private DataFrame resample(IntSequence groupIndexes, int points, boolean isResultCachingEnabled) {
         Map<Integer, int[]> colToResultantCols = new HashMap<>();
         int count = 0;
@@ -536,7 +925,7 @@ public class DataFrame {
             int aggregations;
             FunctionColumnInfo functionColumnInfo = columnNumberToFunctionInfo.get(i);
             if (functionColumnInfo != null) {
-                aggregations = columnAggFunctions.get(functionColumnInfo.argColumnNumber).length;
+                aggregations = functionAggregations(functionColumnInfo).length;
             } else {
                 aggregations = columnAggFunctions.get(i).length;
             }
@@ -556,7 +945,7 @@ public class DataFrame {
             Column column = columns.get(i);
             FunctionColumnInfo functionColumnInfo = columnNumberToFunctionInfo.get(i);
             if (functionColumnInfo != null) {
-                Aggregation[] aggregations = columnAggFunctions.get(functionColumnInfo.argColumnNumber);
+                Aggregation[] aggregations = functionAggregations(functionColumnInfo);
                 for (Aggregation aggregation : aggregations) {
                     resultantFrame.columns.add(null);
                     resultantFrame.columnNames.add(columnNames.get(i) + "_" + aggregation.name());
@@ -579,14 +968,34 @@ public class DataFrame {
         }
 
 
+        // aggregated derived columns depend upon the aggregated argument columns
+        for (Integer key : columnNumberToArgColumns.keySet()) {
+            int[] argColumnNumbers = columnNumberToArgColumns.get(key);
+            int argsCount = 0;
+            for (int argColumnNumber : argColumnNumbers) {
+                argsCount += colToResultantCols.get(argColumnNumber).length;
+            }
+            int[] resultantArgCols = new int[argsCount];
+            int position = 0;
+            for (int argColumnNumber : argColumnNumbers) {
+                int[] cols = colToResultantCols.get(argColumnNumber);
+                System.arraycopy(cols, 0, resultantArgCols, position, cols.length);
+                position += cols.length;
+            }
+            for (int resultantCol : colToResultantCols.get(key)) {
+                resultantFrame.columnNumberToArgColumns.put(resultantCol, resultantArgCols);
+            }
+        }
+
         // put new function columns (as functions on aggregated data)
         for (Integer key : columnNumberToFunctionInfo.keySet()) {
             FunctionColumnInfo functionColumnInfo = columnNumberToFunctionInfo.get(key);
             int[] resultantArgCols = colToResultantCols.get(functionColumnInfo.argColumnNumber);
             int[] resultantFCols = colToResultantCols.get(key);
             for (int i = 0; i < resultantFCols.length; i++) {
-                resultantFrame.columns.set(resultantFCols[i], ColumnFactory.createColumn(functionColumnInfo.function, resultantFrame.columns.get(resultantArgCols[i])));
-                resultantFrame.columnNumberToFunctionInfo.put(resultantFCols[i], new FunctionColumnInfo(functionColumnInfo.function, resultantArgCols[i]));
+                FunctionColumnInfo resultantFunctionInfo = new FunctionColumnInfo(functionColumnInfo.function, resultantArgCols[i], functionColumnInfo.maxCachedBytes);
+                resultantFrame.columns.set(resultantFCols[i], resultantFunctionInfo.createColumn(resultantFrame.columns));
+                resultantFrame.columnNumberToFunctionInfo.put(resultantFCols[i], resultantFunctionInfo);
             }
         }
         resultantFrame.appendData();
@@ -597,6 +1006,18 @@ public class DataFrame {
         }
     }
 
+    /**
+     * Function columns are resampled as functions of the resampled argument column,
+     * so they have the aggregations of the column their chain of functions starts from
+     */
+    private Aggregation[] functionAggregations(FunctionColumnInfo functionColumnInfo) {
+        int argColumnNumber = functionColumnInfo.argColumnNumber;
+        while (columnNumberToFunctionInfo.get(argColumnNumber) != null) {
+            argColumnNumber = columnNumberToFunctionInfo.get(argColumnNumber).argColumnNumber;
+        }
+        return columnAggFunctions.get(argColumnNumber);
+    }
+
     public void appendData() {
         if (columns.size() == 0) {
             length = 0;
@@ -634,10 +1055,20 @@ public class DataFrame {
     class FunctionColumnInfo {
         private final Function function;
         private final int argColumnNumber;
+        private final long maxCachedBytes;
 
-        public FunctionColumnInfo(Function function, int argColumnNumber) {
+        public FunctionColumnInfo(Function function, int argColumnNumber, long maxCachedBytes) {
             this.function = function;
             this.argColumnNumber = argColumnNumber;
+            this.maxCachedBytes = maxCachedBytes;
+        }
+
+        public boolean isCached() {
+            return maxCachedBytes > 0;
+        }
+
+        public Column createColumn(List<Column> columns) {
+            return ColumnFactory.createColumn(function, columns.get(argColumnNumber), maxCachedBytes);
         }
 
         @Override
@@ -648,9 +1079,13 @@ public class DataFrame {
             }
 
             FunctionColumnInfo functionColumnInfo = (FunctionColumnInfo) o;
-
             return argColumnNumber == functionColumnInfo.argColumnNumber
-                    && function.getClass() == functionColumnInfo.function.getClass();
+                    && function.equals(functionColumnInfo.function);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * function.hashCode() + argColumnNumber;
         }
     }
 
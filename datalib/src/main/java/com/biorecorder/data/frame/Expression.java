@@ -0,0 +1,77 @@
+package com.biorecorder.data.frame;
+
+/**
+ * Function of several arguments used to build expression columns
+ * (montages like Fp1 - F3, channel - average(all channels) and so on).
+ * <p>
+ * Expression columns are evaluated by blocks, so implementations
+ * may override {@link #apply(double[][], int, double[])} to process
+ * the whole block at once.
+ */
+public interface Expression {
+    /**
+     * Difference of two arguments: args[0] - args[1] (bipolar montage)
+     */
+    Expression DIFFERENCE = new Expression() {
+        @Override
+        public double apply(double[] args) {
+            return args[0] - args[1];
+        }
+
+        @Override
+        public void apply(double[][] args, int length, double[] result) {
+            double[] minuend = args[0];
+            double[] subtrahend = args[1];
+            for (int i = 0; i < length; i++) {
+                result[i] = minuend[i] - subtrahend[i];
+            }
+        }
+    };
+
+    /**
+     * Mean of all arguments (common average reference)
+     */
+    Expression AVERAGE = new Expression() {
+        @Override
+        public double apply(double[] args) {
+            double sum = 0;
+            for (double arg : args) {
+                sum += arg;
+            }
+            return sum / args.length;
+        }
+
+        @Override
+        public void apply(double[][] args, int length, double[] result) {
+            System.arraycopy(args[0], 0, result, 0, length);
+            for (int j = 1; j < args.length; j++) {
+                double[] arg = args[j];
+                for (int i = 0; i < length; i++) {
+                    result[i] += arg[i];
+                }
+            }
+            for (int i = 0; i < length; i++) {
+                result[i] /= args.length;
+            }
+        }
+    };
+
+    double apply(double[] args);
+
+    /**
+     * Evaluates the block of rows.
+     *
+     * @param args   args[j][i] - value of the argument j in the row i
+     * @param length number of rows in the block
+     * @param result array to write the results to
+     */
+    default void apply(double[][] args, int length, double[] result) {
+        double[] rowArgs = new double[args.length];
+        for (int i = 0; i < length; i++) {
+            for (int j = 0; j < args.length; j++) {
+                rowArgs[j] = args[j][i];
+            }
+            result[i] = apply(rowArgs);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.biorecorder.data.frame;
+
+import java.util.Arrays;
+
+/**
+ * Causal FIR filter designed by the windowed sinc method (Hamming window).
+ * Filters are linear phase so the output is delayed by (numberOfTaps - 1) / 2 samples.
+ * Number of taps is always made odd.
+ */
+public class FirFilter {
+    private final double[] coefficients;
+
+    public FirFilter(double[] coefficients) {
+        if (coefficients.length == 0) {
+            String errMsg = "Filter must have at least one coefficient";
+            throw new IllegalArgumentException(errMsg);
+        }
+        this.coefficients = Arrays.copyOf(coefficients, coefficients.length);
+    }
+
+    public static FirFilter lowPass(double sampleRate, double cutoffFrequency, int numberOfTaps) {
+        return new FirFilter(lowPassCoefficients(sampleRate, cutoffFrequency, numberOfTaps));
+    }
+
+    public static FirFilter highPass(double sampleRate, double cutoffFrequency, int numberOfTaps) {
+        return new FirFilter(invert(lowPassCoefficients(sampleRate, cutoffFrequency, numberOfTaps)));
+    }
+
+    public static FirFilter bandPass(double sampleRate, double lowCutoffFrequency, double highCutoffFrequency, int numberOfTaps) {
+        checkBand(lowCutoffFrequency, highCutoffFrequency);
+        double[] h = lowPassCoefficients(sampleRate, highCutoffFrequency, numberOfTaps);
+        double[] hLow = lowPassCoefficients(sampleRate, lowCutoffFrequency, numberOfTaps);
+        for (int i = 0; i < h.length; i++) {
+            h[i] -= hLow[i];
+        }
+        return new FirFilter(h);
+    }
+
+    /**
+     * Band stop filter to remove power line interference (50/60 Hz)
+     *
+     * @param bandwidth width of the stop band around the given frequency
+     */
+    public static FirFilter notch(double sampleRate, double frequency, double bandwidth, int numberOfTaps) {
+        double lowCutoffFrequency = frequency - bandwidth / 2;
+        double highCutoffFrequency = frequency + bandwidth / 2;
+        checkBand(lowCutoffFrequency, highCutoffFrequency);
+        double[] h = lowPassCoefficients(sampleRate, lowCutoffFrequency, numberOfTaps);
+        double[] hHigh = invert(lowPassCoefficients(sampleRate, highCutoffFrequency, numberOfTaps));
+        for (int i = 0; i < h.length; i++) {
+            h[i] += hHigh[i];
+        }
+        return new FirFilter(h);
+    }
+
+    private static void checkBand(double lowCutoffFrequency, double highCutoffFrequency) {
+        if (lowCutoffFrequency >= highCutoffFrequency) {
+            String errMsg = "Low cutoff frequency: " + lowCutoffFrequency + " must be less than high cutoff frequency: " + highCutoffFrequency;
+            throw new IllegalArgumentException(errMsg);
+        }
+    }
+
+    private static double[] lowPassCoefficients(double sampleRate, double cutoffFrequency, int numberOfTaps) {
+        if (cutoffFrequency <= 0 || cutoffFrequency >= sampleRate / 2) {
+            String errMsg = "Frequency: " + cutoffFrequency + " must be in the range (0, sampleRate/2), sampleRate = " + sampleRate;
+            throw new IllegalArgumentException(errMsg);
+        }
+        if (numberOfTaps < 1) {
+            String errMsg = "Number of taps = " + numberOfTaps + " Expected > 0";
+            throw new IllegalArgumentException(errMsg);
+        }
+        int m = numberOfTaps / 2;
+        double[] h = new double[2 * m + 1];
+        double fc = cutoffFrequency / sampleRate;
+        double sum = 0;
+        for (int i = 0; i < h.length; i++) {
+            int n = i - m;
+            double sinc = n == 0 ? 2 * fc : Math.sin(2 * Math.PI * fc * n) / (Math.PI * n);
+            double window = m == 0 ? 1 : 0.54 + 0.46 * Math.cos(Math.PI * n / m);
+            h[i] = sinc * window;
+            sum += h[i];
+        }
+        // unity gain at DC
+        for (int i = 0; i < h.length; i++) {
+            h[i] /= sum;
+        }
+        return h;
+    }
+
+    /**
+     * Spectral inversion: low pass to high pass
+     */
+    private static double[] invert(double[] h) {
+        for (int i = 0; i < h.length; i++) {
+            h[i] = -h[i];
+        }
+        h[h.length / 2] += 1;
+        return h;
+    }
+
+    public int numberOfTaps() {
+        return coefficients.length;
+    }
+
+    public double coefficient(int index) {
+        return coefficients[index];
+    }
+
+    /**
+     * Filters the block of values.
+     *
+     * @param input  input[0, numberOfTaps - 1) - preceding samples (history),
+     *               input[numberOfTaps - 1, numberOfTaps - 1 + length) - samples to filter
+     * @param result array to write filtered values
+     */
+    public void process(double[] input, int length, double[] result) {
+        int taps = coefficients.length;
+        for (int i = 0; i < length; i++) {
+            double sum = 0;
+            int last = i + taps - 1;
+            for (int k = 0; k < taps; k++) {
+                sum += coefficients[k] * input[last - k];
+            }
+            result[i] = sum;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (!(o instanceof FirFilter)) {
+            return false;
+        }
+        return Arrays.equals(coefficients, ((FirFilter) o).coefficients);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(coefficients);
+    }
+}
@@ -5,4 +5,13 @@ package com.biorecorder.data.frame;
  */
 public interface Function {
     double apply(double value);
+
+    /**
+     * Returns the function that applies this function and then the given one.
+     * Chains of functions are fused into one: nested compositions are flattened
+     * and consecutive affine functions are collapsed into a single affine function.
+     */
+    default Function andThen(Function after) {
+        return ComposedFunction.compose(this, after);
+    }
 }
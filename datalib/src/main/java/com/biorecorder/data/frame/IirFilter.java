@@ -0,0 +1,140 @@
+package com.biorecorder.data.frame;
+
+import java.util.Arrays;
+
+/**
+ * IIR filter as a cascade of second-order sections (biquads)
+ * in transposed direct form II. Coefficients of the sections are
+ * calculated by the well known "Audio EQ Cookbook" formulas
+ * (R. Bristow-Johnson). Low and high pass sections are 2nd order Butterworth.
+ * <p>
+ * The filter is immutable. Its state is kept in an external array
+ * (see {@link #stateSize()}) so the same filter may be applied
+ * to any number of signals and the state may be saved and restored.
+ */
+public class IirFilter {
+    private static final double BUTTERWORTH_Q = 1 / Math.sqrt(2);
+    private static final double DEFAULT_NOTCH_Q = 30;
+    // every section: b0, b1, b2, a1, a2 (normalized by a0)
+    private final double[] coefficients;
+
+    private IirFilter(double[] coefficients) {
+        this.coefficients = coefficients;
+    }
+
+    public static IirFilter lowPass(double sampleRate, double cutoffFrequency) {
+        checkFrequency(sampleRate, cutoffFrequency);
+        double w0 = 2 * Math.PI * cutoffFrequency / sampleRate;
+        double cos = Math.cos(w0);
+        double alpha = Math.sin(w0) / (2 * BUTTERWORTH_Q);
+        return section((1 - cos) / 2, 1 - cos, (1 - cos) / 2, 1 + alpha, -2 * cos, 1 - alpha);
+    }
+
+    public static IirFilter highPass(double sampleRate, double cutoffFrequency) {
+        checkFrequency(sampleRate, cutoffFrequency);
+        double w0 = 2 * Math.PI * cutoffFrequency / sampleRate;
+        double cos = Math.cos(w0);
+        double alpha = Math.sin(w0) / (2 * BUTTERWORTH_Q);
+        return section((1 + cos) / 2, -(1 + cos), (1 + cos) / 2, 1 + alpha, -2 * cos, 1 - alpha);
+    }
+
+    /**
+     * Band pass filter as a cascade of high pass and low pass filters
+     * (suitable for wide bands like EEG 0.5 - 35 Hz)
+     */
+    public static IirFilter bandPass(double sampleRate, double lowCutoffFrequency, double highCutoffFrequency) {
+        if (lowCutoffFrequency >= highCutoffFrequency) {
+            String errMsg = "Low cutoff frequency: " + lowCutoffFrequency + " must be less than high cutoff frequency: " + highCutoffFrequency;
+            throw new IllegalArgumentException(errMsg);
+        }
+        return highPass(sampleRate, lowCutoffFrequency).cascade(lowPass(sampleRate, highCutoffFrequency));
+    }
+
+    /**
+     * Notch (band stop) filter to remove power line interference (50/60 Hz)
+     */
+    public static IirFilter notch(double sampleRate, double frequency) {
+        return notch(sampleRate, frequency, DEFAULT_NOTCH_Q);
+    }
+
+    /**
+     * @param q quality factor: frequency / bandwidth
+     */
+    public static IirFilter notch(double sampleRate, double frequency, double q) {
+        checkFrequency(sampleRate, frequency);
+        double w0 = 2 * Math.PI * frequency / sampleRate;
+        double cos = Math.cos(w0);
+        double alpha = Math.sin(w0) / (2 * q);
+        return section(1, -2 * cos, 1, 1 + alpha, -2 * cos, 1 - alpha);
+    }
+
+    private static IirFilter section(double b0, double b1, double b2, double a0, double a1, double a2) {
+        double[] coefficients = {b0 / a0, b1 / a0, b2 / a0, a1 / a0, a2 / a0};
+        return new IirFilter(coefficients);
+    }
+
+    private static void checkFrequency(double sampleRate, double frequency) {
+        if (frequency <= 0 || frequency >= sampleRate / 2) {
+            String errMsg = "Frequency: " + frequency + " must be in the range (0, sampleRate/2), sampleRate = " + sampleRate;
+            throw new IllegalArgumentException(errMsg);
+        }
+    }
+
+    /**
+     * @return filter that applies this filter and then the given one
+     */
+    public IirFilter cascade(IirFilter filter) {
+        double[] resultantCoefficients = Arrays.copyOf(coefficients, coefficients.length + filter.coefficients.length);
+        System.arraycopy(filter.coefficients, 0, resultantCoefficients, coefficients.length, filter.coefficients.length);
+        return new IirFilter(resultantCoefficients);
+    }
+
+    public int stateSize() {
+        return coefficients.length / 5 * 2;
+    }
+
+    /**
+     * Sets the state as if the signal had been equal to the given value for ever
+     * (that avoids the starting transient of high pass filters on signals with DC offset)
+     */
+    public void initState(double value, double[] state) {
+        for (int i = 0, s = 0; i < coefficients.length; i += 5, s += 2) {
+            double b0 = coefficients[i];
+            double b1 = coefficients[i + 1];
+            double b2 = coefficients[i + 2];
+            double a1 = coefficients[i + 3];
+            double a2 = coefficients[i + 4];
+            double output = value * (b0 + b1 + b2) / (1 + a1 + a2);
+            state[s + 1] = b2 * value - a2 * output;
+            state[s] = b1 * value - a1 * output + state[s + 1];
+            value = output;
+        }
+    }
+
+    /**
+     * Filters the given value and updates the state
+     */
+    public double process(double value, double[] state) {
+        for (int i = 0, s = 0; i < coefficients.length; i += 5, s += 2) {
+            double output = coefficients[i] * value + state[s];
+            state[s] = coefficients[i + 1] * value - coefficients[i + 3] * output + state[s + 1];
+            state[s + 1] = coefficients[i + 2] * value - coefficients[i + 4] * output;
+            value = output;
+        }
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (!(o instanceof IirFilter)) {
+            return false;
+        }
+        return Arrays.equals(coefficients, ((IirFilter) o).coefficients);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(coefficients);
+    }
+}
@@ -0,0 +1,19 @@
+package com.biorecorder.data.frame;
+
+/**
+ * Ways to get signal values between its samples
+ */
+public enum Interpolation {
+    /**
+     * value of the nearest sample
+     */
+    NEAREST,
+    /**
+     * linear interpolation between two neighbouring samples
+     */
+    LINEAR,
+    /**
+     * value of the last preceding sample (sample and hold)
+     */
+    HOLD
+}
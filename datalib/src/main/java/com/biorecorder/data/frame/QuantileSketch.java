@@ -0,0 +1,179 @@
+package com.biorecorder.data.frame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Bounded memory approximate quantiles of a data stream
+ * (simplified KLL sketch: Karnin, Lang, Liberty "Optimal Quantile Approximation in Streams").
+ * <p>
+ * Values are kept in a hierarchy of compactors. Every item of the compactor h
+ * stands for 2^h original values. When a compactor is full it is sorted
+ * and every second its item is promoted to the next compactor.
+ * Compactor capacities decrease geometrically from top to bottom so the sketch
+ * holds O(k log(n/k)) values. While less than k values are added quantiles are exact.
+ * <p>
+ * Sketches are mergeable: partial sketches of groups (or of pyramid levels)
+ * can be merged into the sketch of the whole.
+ */
+public class QuantileSketch {
+    private static final int DEFAULT_K = 200;
+    private static final double CAPACITY_DECAY = 2.0 / 3;
+    private static final long SEED = 0x5DEECE66DL;
+    private static final int INITIAL_COMPACTOR_SIZE = 8;
+    private final int k;
+    private final List<double[]> compactors = new ArrayList<>();
+    private final List<Integer> compactorSizes = new ArrayList<>();
+    private long count;
+    // compactor capacities depend only on the number of compactors
+    // so they are recalculated only when a compactor is added
+    private int[] capacities = new int[0];
+    // random offsets make compaction errors unbiased. The seed is fixed
+    // so the same data always give the same quantiles (no flicker on repaint)
+    private final Random random = new Random(SEED);
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * @param k accuracy parameter. Error of the rank is about 1.7/k
+     */
+    public QuantileSketch(int k) {
+        if (k < 2) {
+            String errMsg = "K = " + k + " Expected >= 2";
+            throw new IllegalArgumentException(errMsg);
+        }
+        this.k = k;
+        addCompactor();
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public void reset() {
+        compactors.clear();
+        compactorSizes.clear();
+        count = 0;
+        random.setSeed(SEED);
+        addCompactor();
+    }
+
+    public void add(double value) {
+        append(0, value);
+        count++;
+        compress();
+    }
+
+    public void merge(QuantileSketch sketch) {
+        while (compactors.size() < sketch.compactors.size()) {
+            addCompactor();
+        }
+        for (int h = 0; h < sketch.compactors.size(); h++) {
+            double[] items = sketch.compactors.get(h);
+            int size = sketch.compactorSizes.get(h);
+            for (int i = 0; i < size; i++) {
+                append(h, items[i]);
+            }
+        }
+        count += sketch.count;
+        compress();
+    }
+
+    /**
+     * @param q quantile in the range [0, 1] (0.5 - median)
+     * @return the smallest retained value whose rank is not less than q * count
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            String errMsg = "Sketch is empty. Quantile can not be calculated.";
+            throw new IllegalStateException(errMsg);
+        }
+        int levels = compactors.size();
+        double[][] sortedItems = new double[levels][];
+        int[] positions = new int[levels];
+        for (int h = 0; h < levels; h++) {
+            sortedItems[h] = Arrays.copyOf(compactors.get(h), compactorSizes.get(h));
+            Arrays.sort(sortedItems[h]);
+        }
+        double rank = Math.max(1, Math.ceil(q * count));
+        long cumulativeWeight = 0;
+        double value = Double.NaN;
+        // merge sorted compactors, every item of the compactor h has weight 2^h
+        while (true) {
+            int minLevel = -1;
+            for (int h = 0; h < levels; h++) {
+                if (positions[h] < sortedItems[h].length
+                        && (minLevel < 0 || sortedItems[h][positions[h]] < sortedItems[minLevel][positions[minLevel]])) {
+                    minLevel = h;
+                }
+            }
+            if (minLevel < 0) {
+                return value;
+            }
+            value = sortedItems[minLevel][positions[minLevel]++];
+            cumulativeWeight += 1L << minLevel;
+            if (cumulativeWeight >= rank) {
+                return value;
+            }
+        }
+    }
+
+    private void addCompactor() {
+        // compactors grow on demand, so sketches of small groups stay small
+        compactors.add(new double[Math.min(k, INITIAL_COMPACTOR_SIZE)]);
+        compactorSizes.add(0);
+        int levels = compactors.size();
+        capacities = new int[levels];
+        for (int h = 0; h < levels; h++) {
+            int depth = levels - 1 - h;
+            capacities[h] = Math.max(2, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+        }
+    }
+
+    private void append(int h, double value) {
+        double[] items = compactors.get(h);
+        int size = compactorSizes.get(h);
+        if (size == items.length) {
+            items = Arrays.copyOf(items, items.length * 2);
+            compactors.set(h, items);
+        }
+        items[size] = value;
+        compactorSizes.set(h, size + 1);
+    }
+
+    private void compress() {
+        for (int h = 0; h < compactors.size(); h++) {
+            if (compactorSizes.get(h) >= capacities[h]) {
+                if (h + 1 == compactors.size()) {
+                    addCompactor();
+                }
+                compact(h);
+            }
+        }
+    }
+
+    /**
+     * Promotes every second item of the sorted compactor to the next one.
+     * If the number of items is odd the largest one stays.
+     */
+    private void compact(int h) {
+        double[] items = compactors.get(h);
+        int size = compactorSizes.get(h);
+        Arrays.sort(items, 0, size);
+        int pairs = size / 2;
+        int offset = random.nextBoolean() ? 1 : 0;
+        for (int i = 0; i < pairs; i++) {
+            append(h + 1, items[2 * i + offset]);
+        }
+        if (size % 2 == 1) {
+            items[0] = items[size - 1];
+            compactorSizes.set(h, 1);
+        } else {
+            compactorSizes.set(h, 0);
+        }
+    }
+}
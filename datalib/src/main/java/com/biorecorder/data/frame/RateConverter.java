@@ -0,0 +1,125 @@
+package com.biorecorder.data.frame;
+
+/**
+ * Rational sample rate converter (new rate = rate * upFactor / downFactor).
+ * The signal is upsampled by upFactor, filtered by the antialiasing low pass FIR filter
+ * and downsampled by downFactor. The filter is split into upFactor polyphase
+ * branches so only the non zero upsampled samples take part in the calculations
+ * and only the output samples are calculated.
+ * <p>
+ * The filter delay is compensated so output sample m corresponds to
+ * the time of input sample m * downFactor / upFactor.
+ */
+public class RateConverter {
+    private static final int DEFAULT_TAPS_PER_PHASE = 24;
+    private static final double PASS_BAND = 0.9;
+    private final int upFactor;
+    private final int downFactor;
+    // phases[p][i] = upFactor * h[p + i * upFactor]
+    private final double[][] phases;
+    private final int delay;
+
+    public RateConverter(int upFactor, int downFactor) {
+        this(upFactor, downFactor, DEFAULT_TAPS_PER_PHASE);
+    }
+
+    /**
+     * @param tapsPerPhase filter length per polyphase branch. Longer filters give sharper cutoff
+     */
+    public RateConverter(int upFactor, int downFactor, int tapsPerPhase) {
+        if (upFactor < 1 || downFactor < 1 || tapsPerPhase < 1) {
+            String errMsg = "UpFactor = " + upFactor + ", downFactor = " + downFactor + ", tapsPerPhase = " + tapsPerPhase + ". Expected > 0";
+            throw new IllegalArgumentException(errMsg);
+        }
+        int gcd = gcd(upFactor, downFactor);
+        this.upFactor = upFactor / gcd;
+        this.downFactor = downFactor / gcd;
+        if (this.upFactor == 1 && this.downFactor == 1) {
+            phases = new double[][]{{1}};
+            delay = 0;
+            return;
+        }
+        // frequencies are relative to the input sample rate
+        double upsampledRate = this.upFactor;
+        double cutoff = 0.5 * Math.min(1, (double) this.upFactor / this.downFactor) * PASS_BAND;
+        FirFilter filter = FirFilter.lowPass(upsampledRate, cutoff, tapsPerPhase * this.upFactor);
+        int taps = filter.numberOfTaps();
+        delay = (taps - 1) / 2;
+        phases = new double[this.upFactor][];
+        for (int p = 0; p < this.upFactor; p++) {
+            double[] phase = new double[(taps - p + this.upFactor - 1) / this.upFactor];
+            for (int i = 0; i < phase.length; i++) {
+                phase[i] = this.upFactor * filter.coefficient(p + i * this.upFactor);
+            }
+            phases[p] = phase;
+        }
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int tmp = a % b;
+            a = b;
+            b = tmp;
+        }
+        return a;
+    }
+
+    public int getUpFactor() {
+        return upFactor;
+    }
+
+    public int getDownFactor() {
+        return downFactor;
+    }
+
+    /**
+     * @return number of output samples that may be calculated from the given number of input samples
+     * (the last outputs need some input samples after them)
+     */
+    public int outputSize(int inputSize) {
+        if (inputSize == 0) {
+            return 0;
+        }
+        long lastUpsampled = (long) (inputSize - 1) * upFactor - delay;
+        if (lastUpsampled < 0) {
+            return 0;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, lastUpsampled / downFactor + 1);
+    }
+
+    /**
+     * @return index of the first input sample required to calculate the given output sample
+     */
+    public long firstInput(int outputIndex) {
+        long upsampledIndex = (long) outputIndex * downFactor + delay;
+        return upsampledIndex / upFactor - maxPhaseLength() + 1;
+    }
+
+    /**
+     * @return index of the last input sample required to calculate the given output sample
+     */
+    public long lastInput(int outputIndex) {
+        return ((long) outputIndex * downFactor + delay) / upFactor;
+    }
+
+    private int maxPhaseLength() {
+        return phases[0].length;
+    }
+
+    /**
+     * Calculates output sample.
+     *
+     * @param input      input samples
+     * @param inputStart index of the input sample input[0]
+     */
+    public double convert(int outputIndex, double[] input, long inputStart) {
+        long upsampledIndex = (long) outputIndex * downFactor + delay;
+        double[] phase = phases[(int) (upsampledIndex % upFactor)];
+        int base = (int) (upsampledIndex / upFactor - inputStart);
+        double sum = 0;
+        for (int i = 0; i < phase.length; i++) {
+            sum += phase[i] * input[base - i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,23 @@
+package com.biorecorder.data.frame;
+
+/**
+ * Aggregations over the sliding (moving) window of the given number of samples
+ */
+public enum RollingAggregation {
+    MEAN("Mean"),
+    RMS("Rms"),
+    MIN("Min"),
+    MAX("Max"),
+    STD("Std");
+
+    private String functionName;
+
+    RollingAggregation(String functionName) {
+        this.functionName = functionName;
+    }
+
+    @Override
+    public String toString() {
+        return functionName;
+    }
+}
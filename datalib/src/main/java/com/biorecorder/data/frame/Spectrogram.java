@@ -0,0 +1,236 @@
+package com.biorecorder.data.frame;
+
+import com.biorecorder.data.list.FloatArrayList;
+import com.biorecorder.data.utils.FftUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Spectral analysis of a signal column: power spectral density of
+ * the windowed signal frames (short-time Fourier transform).
+ * The mean of every frame is removed before the transform.
+ * <p>
+ * Frames are calculated in parallel on the given ForkJoinPool.
+ * Every zoom level has its own frame step: hopSize * 2^zoomLevel, so coarse views
+ * of long recordings need only a fraction of the frames. Frames are not widened with the step,
+ * so when the step exceeds the window size the samples between frames are skipped
+ * (every frame is a spot estimate of the spectrum, not an average over the step).
+ * Calculated frames of every level are cached and when the signal grows
+ * (data append mode) only new frames are calculated.
+ * <p>
+ * Result is presented as a time × frequency data frame: column 0 - start time of the frames,
+ * column i (i &gt; 0) - power at the frequency {@link #frequency(int) frequency(i - 1)}.
+ * If the signal is taken from a data frame with regular column 0 frame times are in the units
+ * of that column, otherwise they are in seconds from the beginning of the signal.
+ */
+public class Spectrogram {
+    private static final int FRAMES_PER_TASK = 32;
+    private final Column signal;
+    private final double timeStart;
+    private final double sampleInterval;
+    private final double sampleRate;
+    private final int windowSize;
+    private final int hopSize;
+    private final double[] window;
+    private final double[][] twiddleTable;
+    private final double powerScale;
+    private final ForkJoinPool pool;
+    private final Map<Integer, Level> levels = new HashMap<>();
+
+    public Spectrogram(DataFrame dataFrame, int columnNumber, double sampleRate, int windowSize, int hopSize, WindowFunction windowFunction) {
+        this(dataFrame.columns.get(columnNumber), timeColumn(dataFrame, columnNumber), sampleRate, windowSize, hopSize, windowFunction, ForkJoinPool.commonPool());
+    }
+
+    public Spectrogram(Column signal, double sampleRate, int windowSize, int hopSize, WindowFunction windowFunction) {
+        this(signal, sampleRate, windowSize, hopSize, windowFunction, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param windowSize number of samples in a frame. Must be a power of two
+     * @param hopSize    step between frames in samples (windowSize - overlap)
+     */
+    public Spectrogram(Column signal, double sampleRate, int windowSize, int hopSize, WindowFunction windowFunction, ForkJoinPool pool) {
+        this(signal, null, sampleRate, windowSize, hopSize, windowFunction, pool);
+    }
+
+    /**
+     * @param time regular time column of the signal samples or null
+     */
+    private Spectrogram(Column signal, RegularColumn time, double sampleRate, int windowSize, int hopSize, WindowFunction windowFunction, ForkJoinPool pool) {
+        if (!FftUtils.isPowerOfTwo(windowSize)) {
+            String errMsg = "Window size: " + windowSize + " must be a power of two";
+            throw new IllegalArgumentException(errMsg);
+        }
+        if (hopSize <= 0) {
+            String errMsg = "Hop size = " + hopSize + " Expected > 0";
+            throw new IllegalArgumentException(errMsg);
+        }
+        if (signal.dataType() == DataType.String) {
+            String errMsg = "Spectrogram can not be calculated for String column";
+            throw new IllegalArgumentException(errMsg);
+        }
+        this.signal = signal;
+        if (time != null) {
+            timeStart = time.start();
+            sampleInterval = time.step();
+        } else {
+            timeStart = 0;
+            sampleInterval = 1 / sampleRate;
+        }
+        this.sampleRate = sampleRate;
+        this.windowSize = windowSize;
+        this.hopSize = hopSize;
+        this.pool = pool;
+        window = windowFunction.coefficients(windowSize);
+        twiddleTable = FftUtils.twiddleTable(windowSize);
+        double windowPower = 0;
+        for (double w : window) {
+            windowPower += w * w;
+        }
+        powerScale = 1 / (sampleRate * windowPower);
+    }
+
+    private static RegularColumn timeColumn(DataFrame dataFrame, int signalColumnNumber) {
+        if (signalColumnNumber != 0 && dataFrame.isColumnRegular(0)) {
+            return (RegularColumn) dataFrame.columns.get(0);
+        }
+        return null;
+    }
+
+    public int frequencyCount() {
+        return windowSize / 2 + 1;
+    }
+
+    public double frequency(int bin) {
+        return bin * sampleRate / windowSize;
+    }
+
+    /**
+     * @return the finest zoom level whose number of frames does not exceed the given one
+     * (for example the number of pixels available to draw the spectrogram)
+     */
+    public int zoomLevel(int maxFrames) {
+        int level = 0;
+        while (frameCount(hopSize << level) > Math.max(1, maxFrames) && (hopSize << (level + 1)) > 0) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * @return time × frequency data frame of the given zoom level
+     * with all frames that may be calculated for the current signal size
+     */
+    public synchronized DataFrame getDataFrame(int zoomLevel) {
+        Level level = levels.get(zoomLevel);
+        if (level == null) {
+            level = new Level(hopSize << zoomLevel);
+            levels.put(zoomLevel, level);
+        }
+        level.update();
+        return level.dataFrame;
+    }
+
+    private int frameCount(int hop) {
+        int size = signal.size();
+        if (size < windowSize) {
+            return 0;
+        }
+        return (size - windowSize) / hop + 1;
+    }
+
+    /**
+     * Calculates power spectrum of the frame starting at the given sample
+     */
+    private void calculateFrame(int startSample, double[] re, double[] im, float[][] result, int resultIndex) {
+        // lazy caches of the columns are thread safe, so frames read the signal concurrently
+        for (int i = 0; i < windowSize; i++) {
+            re[i] = signal.value(startSample + i);
+        }
+        double mean = 0;
+        for (int i = 0; i < windowSize; i++) {
+            mean += re[i];
+        }
+        mean /= windowSize;
+        for (int i = 0; i < windowSize; i++) {
+            re[i] = (re[i] - mean) * window[i];
+            im[i] = 0;
+        }
+        FftUtils.fft(re, im, twiddleTable);
+        int bins = frequencyCount();
+        for (int k = 0; k < bins; k++) {
+            double power = (re[k] * re[k] + im[k] * im[k]) * powerScale;
+            if (k != 0 && k != windowSize / 2) { // one-sided spectrum
+                power *= 2;
+            }
+            result[k][resultIndex] = (float) power;
+        }
+    }
+
+    class Level {
+        private final int hop;
+        private final FloatArrayList[] spectrum;
+        private final DataFrame dataFrame;
+
+        Level(int hop) {
+            this.hop = hop;
+            int bins = frequencyCount();
+            spectrum = new FloatArrayList[bins];
+            dataFrame = new DataFrame(true);
+            dataFrame.addColumn("time", timeStart, hop * sampleInterval);
+            for (int k = 0; k < bins; k++) {
+                spectrum[k] = new FloatArrayList();
+                dataFrame.addColumn(frequency(k) + " Hz", spectrum[k]);
+            }
+        }
+
+        void update() {
+            int from = spectrum[0].size();
+            int to = frameCount(hop);
+            if (to <= from) {
+                return;
+            }
+            float[][] result = new float[spectrum.length][to - from];
+            pool.invoke(new FramesTask(this, from, to, from, result));
+            for (int k = 0; k < spectrum.length; k++) {
+                spectrum[k].add(result[k]);
+            }
+            dataFrame.appendData();
+        }
+    }
+
+    class FramesTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Level level;
+        private final int fromFrame;
+        private final int toFrame;
+        private final int resultOffset;
+        private final float[][] result;
+
+        FramesTask(Level level, int fromFrame, int toFrame, int resultOffset, float[][] result) {
+            this.level = level;
+            this.fromFrame = fromFrame;
+            this.toFrame = toFrame;
+            this.resultOffset = resultOffset;
+            this.result = result;
+        }
+
+        @Override
+        protected void compute() {
+            if (toFrame - fromFrame <= FRAMES_PER_TASK) {
+                double[] re = new double[windowSize];
+                double[] im = new double[windowSize];
+                for (int frame = fromFrame; frame < toFrame; frame++) {
+                    calculateFrame(frame * level.hop, re, im, result, frame - resultOffset);
+                }
+                return;
+            }
+            int middle = (fromFrame + toFrame) >>> 1;
+            invokeAll(new FramesTask(level, fromFrame, middle, resultOffset, result),
+                    new FramesTask(level, middle, toFrame, resultOffset, result));
+        }
+    }
+}
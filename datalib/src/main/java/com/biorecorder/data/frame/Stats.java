@@ -8,6 +8,13 @@ public interface Stats {
 
     double max();
 
+    double mean();
+
+    /**
+     * @return population variance (sum of squared deviations divided by count)
+     */
+    double variance();
+
     boolean isIncreasing();
 
     boolean isDecreasing();
@@ -0,0 +1,28 @@
+package com.biorecorder.data.frame;
+
+/**
+ * Window functions applied to signal frames before spectral analysis
+ */
+public enum WindowFunction {
+    RECTANGULAR,
+    HANN,
+    HAMMING;
+
+    public double[] coefficients(int size) {
+        double[] w = new double[size];
+        for (int i = 0; i < size; i++) {
+            double phase = size == 1 ? 0 : 2 * Math.PI * i / (size - 1);
+            switch (this) {
+                case HANN:
+                    w[i] = 0.5 - 0.5 * Math.cos(phase);
+                    break;
+                case HAMMING:
+                    w[i] = 0.54 - 0.46 * Math.cos(phase);
+                    break;
+                default:
+                    w[i] = 1;
+            }
+        }
+        return w;
+    }
+}
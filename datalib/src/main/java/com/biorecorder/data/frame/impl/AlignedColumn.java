@@ -0,0 +1,73 @@
+package com.biorecorder.data.frame.impl;
+
+import com.biorecorder.data.frame.Column;
+import com.biorecorder.data.frame.Interpolation;
+import com.biorecorder.data.sequence.DoubleSequence;
+
+/**
+ * Values of a regularly sampled signal (source column with the given sample start and step)
+ * on another regular time axis. Time axis index is mapped to the source index
+ * arithmetically and values between samples are interpolated on the fly,
+ * so nothing is materialized. Values outside the signal are taken equal to its edge values.
+ * The column contains all axis points up to the last sample of the signal.
+ */
+public class AlignedColumn extends DoubleColumn {
+
+    public AlignedColumn(Column source, double sourceStart, double sourceStep, double start, double step, Interpolation interpolation) {
+        super(new DoubleSequence() {
+            // source position of the axis point i = offset + i * ratio
+            private final double offset = (start - sourceStart) / sourceStep;
+            private final double ratio = step / sourceStep;
+
+            @Override
+            public int size() {
+                int sourceSize = source.size();
+                if (sourceSize == 0) {
+                    return 0;
+                }
+                double lastPosition = sourceSize - 1 - offset;
+                if (lastPosition < 0) {
+                    return 0;
+                }
+                // small tolerance to compensate rounding errors of time calculations
+                return (int) Math.min(Integer.MAX_VALUE, (long) (lastPosition / ratio + 1e-9) + 1);
+            }
+
+            @Override
+            public double get(int index) {
+                double position = offset + index * ratio;
+                int lastIndex = source.size() - 1;
+                switch (interpolation) {
+                    case NEAREST:
+                        return source.value(clamp(Math.round(position), lastIndex));
+                    case HOLD:
+                        return source.value(clamp((long) Math.floor(position + 1e-9), lastIndex));
+                    default:
+                        if (position <= 0) {
+                            return source.value(0);
+                        }
+                        if (position >= lastIndex) {
+                            return source.value(lastIndex);
+                        }
+                        int index1 = (int) position;
+                        double fraction = position - index1;
+                        double value1 = source.value(index1);
+                        if (fraction == 0) {
+                            return value1;
+                        }
+                        return value1 + (source.value(index1 + 1) - value1) * fraction;
+                }
+            }
+        });
+    }
+
+    private static int clamp(long index, int lastIndex) {
+        if (index < 0) {
+            return 0;
+        }
+        if (index > lastIndex) {
+            return lastIndex;
+        }
+        return (int) index;
+    }
+}
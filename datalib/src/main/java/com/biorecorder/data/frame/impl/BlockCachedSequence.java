@@ -0,0 +1,96 @@
+package com.biorecorder.data.frame.impl;
+
+import com.biorecorder.data.sequence.DoubleSequence;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Lazy sequence of calculated values. Values are calculated
+ * by blocks and the most recently used filled blocks are kept
+ * within the given limit. The last not filled block is never memoized
+ * because it may grow in data append mode.
+ * <p>
+ * If no blocks may be memoized only sequential reading is done
+ * by blocks while random access values are calculated one by one.
+ * <p>
+ * Reading is synchronized because blocks and scratch buffers are shared
+ * by all readers.
+ */
+abstract class BlockCachedSequence implements DoubleSequence {
+    private static final int BLOCK_BITS = 12;
+    static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    private final int maxCachedBlocks;
+    private final Map<Integer, double[]> blocks;
+    private int lastBlockNumber = -1;
+    private double[] lastBlock;
+    private int tailBlockNumber = -1;
+    private int tailLength;
+    private double[] tail;
+    private int lastIndex = -1;
+    private final double[] single = new double[1];
+
+    BlockCachedSequence(int maxCachedBlocks) {
+        this.maxCachedBlocks = maxCachedBlocks;
+        blocks = new LinkedHashMap<Integer, double[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, double[]> eldest) {
+                return size() > maxCachedBlocks;
+            }
+        };
+    }
+
+    static int blocksInBudget(long maxCachedBytes) {
+        return (int) Math.min(Integer.MAX_VALUE, maxCachedBytes / (BLOCK_SIZE * Double.BYTES));
+    }
+
+    /**
+     * Calculates values with indexes [from, from + length) into result[0, length)
+     */
+    protected abstract void calculate(int from, int length, double[] result);
+
+    @Override
+    public synchronized double get(int index) {
+        int previousIndex = lastIndex;
+        lastIndex = index;
+        int blockNumber = index >>> BLOCK_BITS;
+        if (blockNumber == lastBlockNumber) {
+            return lastBlock[index & BLOCK_MASK];
+        }
+        if (blockNumber == tailBlockNumber && (index & BLOCK_MASK) < tailLength) {
+            return tail[index & BLOCK_MASK];
+        }
+        if (maxCachedBlocks == 0 && index != previousIndex + 1) {
+            calculate(index, 1, single);
+            return single[0];
+        }
+        int blockStart = blockNumber << BLOCK_BITS;
+        int blockLength = (int) Math.min(BLOCK_SIZE, (long) size() - blockStart);
+        if (blockLength < BLOCK_SIZE) {
+            if (tail == null) {
+                tail = new double[BLOCK_SIZE];
+            }
+            calculate(blockStart, blockLength, tail);
+            tailBlockNumber = blockNumber;
+            tailLength = blockLength;
+            return tail[index & BLOCK_MASK];
+        }
+        double[] block = blocks.get(blockNumber);
+        if (block == null) {
+            if (maxCachedBlocks == 0 && lastBlock != null) {
+                block = lastBlock;
+            } else {
+                block = new double[BLOCK_SIZE];
+            }
+            calculate(blockStart, BLOCK_SIZE, block);
+            if (maxCachedBlocks > 0) {
+                blocks.put(blockNumber, block);
+            }
+        }
+        lastBlockNumber = blockNumber;
+        lastBlock = block;
+        return block[index & BLOCK_MASK];
+    }
+}
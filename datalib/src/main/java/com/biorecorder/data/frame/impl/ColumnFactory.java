@@ -2,8 +2,14 @@ package com.biorecorder.data.frame.impl;
 
 import com.biorecorder.data.frame.Column;
 import com.biorecorder.data.frame.DataType;
+import com.biorecorder.data.frame.Expression;
+import com.biorecorder.data.frame.FirFilter;
 import com.biorecorder.data.frame.Function;
+import com.biorecorder.data.frame.IirFilter;
+import com.biorecorder.data.frame.Interpolation;
+import com.biorecorder.data.frame.RateConverter;
 import com.biorecorder.data.frame.RegularColumn;
+import com.biorecorder.data.frame.RollingAggregation;
 import com.biorecorder.data.sequence.*;
 import com.biorecorder.data.utils.PrimitiveUtils;
 
@@ -27,9 +33,33 @@ public class ColumnFactory {
     public static Column createColumn(StringSequence data) {
         return new StringColumn(data);
     }
+    public static Column createColumn(StringSequence data, boolean isDataAppendMode) {
+        return new StringColumn(data, isDataAppendMode);
+    }
     public static Column createColumn(Function function, Column argColumn) {
         return new FunctionColumn(function, argColumn);
     }
+    public static Column createColumn(Function function, Column argColumn, long maxCachedBytes) {
+        return new FunctionColumn(function, argColumn, maxCachedBytes);
+    }
+    public static Column createColumn(Expression expression, Column[] argColumns, long maxCachedBytes) {
+        return new ExpressionColumn(expression, argColumns, maxCachedBytes);
+    }
+    public static Column createColumn(IirFilter filter, Column argColumn, long maxCachedBytes) {
+        return new IirFilterColumn(filter, argColumn, maxCachedBytes);
+    }
+    public static Column createColumn(FirFilter filter, Column argColumn, long maxCachedBytes) {
+        return new FirFilterColumn(filter, argColumn, maxCachedBytes);
+    }
+    public static Column createAlignedColumn(Column source, double sourceStart, double sourceStep, double start, double step, Interpolation interpolation) {
+        return new AlignedColumn(source, sourceStart, sourceStep, start, step, interpolation);
+    }
+    public static Column createColumn(RateConverter converter, Column argColumn, long maxCachedBytes) {
+        return new RateConversionColumn(converter, argColumn, maxCachedBytes);
+    }
+    public static Column createColumn(RollingAggregation aggregation, int windowSize, Column argColumn, long maxCachedBytes) {
+        return new RollingColumn(aggregation, windowSize, argColumn, maxCachedBytes);
+    }
     public static Column createColumn(double start, double step) {
         return createColumn(start, step, Integer.MAX_VALUE);
     }
@@ -83,6 +113,8 @@ public class ColumnFactory {
                     return concat((LongColumn) column1, column1Length, (LongColumn) column2);
                 case Float:
                     return concat((FloatColumn) column1, column1Length, (FloatColumn) column2);
+                case Double:
+                    return concat((DoubleColumn) column1, column1Length, (DoubleColumn) column2);
             }
         }
 
@@ -120,7 +152,9 @@ public class ColumnFactory {
                 }
             }
         };
-        return new DoubleColumn(resultantSequence);
+        DoubleColumn resultantColumn = new DoubleColumn(resultantSequence);
+        resultantColumn.setGroupSketches(GroupSketches.concat(column1.groupSketches(), column1Length, column2.groupSketches()));
+        return resultantColumn;
    }
 
    private static Column concat(FloatColumn column1, int column1Length, FloatColumn column2) {
@@ -139,7 +173,9 @@ public class ColumnFactory {
                 }
             }
         };
-        return new FloatColumn(resultantSequence);
+        FloatColumn resultantColumn = new FloatColumn(resultantSequence);
+        resultantColumn.setGroupSketches(GroupSketches.concat(column1.groupSketches(), column1Length, column2.groupSketches()));
+        return resultantColumn;
    }
 
    private static Column concat(IntColumn column1, int column1Length, IntColumn column2) {
@@ -158,7 +194,9 @@ public class ColumnFactory {
                 }
             }
         };
-        return new IntColumn(resultantSequence);
+        IntColumn resultantColumn = new IntColumn(resultantSequence);
+        resultantColumn.setGroupSketches(GroupSketches.concat(column1.groupSketches(), column1Length, column2.groupSketches()));
+        return resultantColumn;
    }
 
    private static Column concat(LongColumn column1, int column1Length, LongColumn column2) {
@@ -177,7 +215,9 @@ public class ColumnFactory {
                 }
             }
         };
-        return new LongColumn(resultantSequence);
+        LongColumn resultantColumn = new LongColumn(resultantSequence);
+        resultantColumn.setGroupSketches(GroupSketches.concat(column1.groupSketches(), column1Length, column2.groupSketches()));
+        return resultantColumn;
    }
 
    private static Column concat(ShortColumn column1, int column1Length, ShortColumn column2) {
@@ -196,6 +236,8 @@ public class ColumnFactory {
                 }
             }
         };
-        return new ShortColumn(resultantSequence);
+        ShortColumn resultantColumn = new ShortColumn(resultantSequence);
+        resultantColumn.setGroupSketches(GroupSketches.concat(column1.groupSketches(), column1Length, column2.groupSketches()));
+        return resultantColumn;
    }
 }
@@ -4,6 +4,7 @@ package com.biorecorder.data.frame.impl;
 import com.biorecorder.data.frame.*;
 import com.biorecorder.data.sequence.DoubleSequence;
 import com.biorecorder.data.sequence.IntSequence;
+import com.biorecorder.data.utils.PrimitiveUtils;
 
 /**
  * Created by galafit on 20/1/19.
@@ -68,6 +69,14 @@ class DoubleRegularColumn extends DoubleColumn implements RegularColumn {
         return index;
     }
 
+    @Override
+    public void bisect(double[] sortedValues, int from, int length, int[] resultIndexes) {
+        // index is calculated arithmetically so there is nothing to share between searches
+        for (int i = 0; i < sortedValues.length; i++) {
+            resultIndexes[i] = bisect(sortedValues[i], from, length);
+        }
+    }
+
     @Override
     public Stats stats(int length) {
         return new Stats() {
@@ -81,6 +90,16 @@ class DoubleRegularColumn extends DoubleColumn implements RegularColumn {
                 return value(length - 1);
             }
 
+            @Override
+            public double mean() {
+                return (value(0) + value(length - 1)) / 2;
+            }
+
+            @Override
+            public double variance() {
+                return progressionVariance(length);
+            }
+
             @Override
             public boolean isIncreasing() {
                 return true;
@@ -154,6 +173,36 @@ class DoubleRegularColumn extends DoubleColumn implements RegularColumn {
                 double stepNew = step * points;
                 return new DoubleRegularColumn(startNew, stepNew, sizeNew);
             }
+            case VARIANCE: {
+                // all groups have the same variance
+                double startNew = PrimitiveUtils.roundDouble2double(progressionVariance(points));
+                return new DoubleRegularColumn(startNew, 0, sizeNew);
+            }
+            case STDDEV: {
+                double startNew = PrimitiveUtils.roundDouble2double(Math.sqrt(progressionVariance(points)));
+                return new DoubleRegularColumn(startNew, 0, sizeNew);
+            }
+            case RMS: {
+                DoubleSequence resultantSequence = new DoubleSequence() {
+                    @Override
+                    public int size() {
+                        return sizeNew;
+                    }
+
+                    @Override
+                    public double get(int index) {
+                        return PrimitiveUtils.roundDouble2double(rms(index * points, points));
+                    }
+                };
+                return new DoubleColumn(resultantSequence);
+            }
+            case MEDIAN:
+            case PERCENTILE_5:
+            case PERCENTILE_25:
+            case PERCENTILE_75:
+            case PERCENTILE_95:
+                // values are calculated and added to the quantile sketch group by group
+                return super.resample(aggregation, points, isDataAppendMode);
             default:
                 String errMsg = "Unsupported Aggregate function: "+ aggregation;
                 throw new IllegalArgumentException(errMsg);
@@ -235,6 +284,58 @@ class DoubleRegularColumn extends DoubleColumn implements RegularColumn {
                 };
                 return new DoubleColumn(resultantSequence);
             }
+            case VARIANCE: {
+                DoubleSequence resultantSequence = new DoubleSequence() {
+                    @Override
+                    public int size() {
+                        return groupsCount(groupIndexes, isDataAppendMode);
+                    }
+
+                    @Override
+                    public double get(int index) {
+                        int length = groupIndexes.get(index + 1) - groupIndexes.get(index);
+                        return PrimitiveUtils.roundDouble2double(progressionVariance(length));
+                    }
+                };
+                return new DoubleColumn(resultantSequence);
+            }
+            case STDDEV: {
+                DoubleSequence resultantSequence = new DoubleSequence() {
+                    @Override
+                    public int size() {
+                        return groupsCount(groupIndexes, isDataAppendMode);
+                    }
+
+                    @Override
+                    public double get(int index) {
+                        int length = groupIndexes.get(index + 1) - groupIndexes.get(index);
+                        return PrimitiveUtils.roundDouble2double(Math.sqrt(progressionVariance(length)));
+                    }
+                };
+                return new DoubleColumn(resultantSequence);
+            }
+            case RMS: {
+                DoubleSequence resultantSequence = new DoubleSequence() {
+                    @Override
+                    public int size() {
+                        return groupsCount(groupIndexes, isDataAppendMode);
+                    }
+
+                    @Override
+                    public double get(int index) {
+                        int length = groupIndexes.get(index + 1) - groupIndexes.get(index);
+                        return PrimitiveUtils.roundDouble2double(rms(groupIndexes.get(index), length));
+                    }
+                };
+                return new DoubleColumn(resultantSequence);
+            }
+            case MEDIAN:
+            case PERCENTILE_5:
+            case PERCENTILE_25:
+            case PERCENTILE_75:
+            case PERCENTILE_95:
+                // values are calculated and added to the quantile sketch group by group
+                return super.resample(aggregateFunction, groupIndexes, isDataAppendMode);
             default:
                 String errMsg = "Unsupported Aggregate function: "+aggregateFunction;
                 throw new IllegalArgumentException(errMsg);
@@ -249,4 +350,14 @@ class DoubleRegularColumn extends DoubleColumn implements RegularColumn {
         return sum(from, length) / length;
     }
 
+    // variance of the arithmetic progression
+    private double progressionVariance(int length) {
+        return step * step * ((double) length * length - 1) / 12;
+    }
+
+    private double rms(int from, int length) {
+        double mean = avg(from, length);
+        return Math.sqrt(mean * mean + progressionVariance(length));
+    }
+
 }
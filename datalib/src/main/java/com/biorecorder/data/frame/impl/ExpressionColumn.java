@@ -0,0 +1,61 @@
+package com.biorecorder.data.frame.impl;
+
+import com.biorecorder.data.frame.Column;
+import com.biorecorder.data.frame.Expression;
+
+/**
+ * Column whose values are calculated by the given expression
+ * from the values of several argument columns.
+ * Values are evaluated lazily by blocks.
+ * <p>
+ * Expression columns are often shared by many others (like common average
+ * referenced by every channel of the montage), so some recently evaluated blocks
+ * are always memoized whatever the given budget.
+ */
+public class ExpressionColumn extends DoubleColumn {
+    private static final int MIN_CACHED_BLOCKS = 16;
+
+    /**
+     * @param maxCachedBytes memory budget to memoize evaluated values
+     */
+    public ExpressionColumn(Expression expression, Column[] argColumns, long maxCachedBytes) {
+        super(new ExpressionSequence(expression, argColumns,
+                Math.max(MIN_CACHED_BLOCKS, BlockCachedSequence.blocksInBudget(maxCachedBytes))));
+    }
+
+    static class ExpressionSequence extends BlockCachedSequence {
+        private final Expression expression;
+        private final Column[] argColumns;
+        private double[][] argBlocks;
+
+        ExpressionSequence(Expression expression, Column[] argColumns, int maxCachedBlocks) {
+            super(maxCachedBlocks);
+            this.expression = expression;
+            this.argColumns = argColumns;
+        }
+
+        @Override
+        public int size() {
+            int size = argColumns[0].size();
+            for (int j = 1; j < argColumns.length; j++) {
+                size = Math.min(size, argColumns[j].size());
+            }
+            return size;
+        }
+
+        @Override
+        protected void calculate(int from, int length, double[] result) {
+            if (argBlocks == null) {
+                argBlocks = new double[argColumns.length][BLOCK_SIZE];
+            }
+            for (int j = 0; j < argColumns.length; j++) {
+                Column argColumn = argColumns[j];
+                double[] argBlock = argBlocks[j];
+                for (int i = 0; i < length; i++) {
+                    argBlock[i] = argColumn.value(from + i);
+                }
+            }
+            expression.apply(argBlocks, length, result);
+        }
+    }
+}
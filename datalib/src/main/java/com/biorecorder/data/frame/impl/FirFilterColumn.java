@@ -0,0 +1,49 @@
+package com.biorecorder.data.frame.impl;
+
+import com.biorecorder.data.frame.Column;
+import com.biorecorder.data.frame.FirFilter;
+
+/**
+ * Column of the argument column values filtered by the given FIR filter.
+ * Filtered values are calculated lazily by blocks. Samples before the
+ * beginning of the data are taken equal to the first sample.
+ */
+public class FirFilterColumn extends DoubleColumn {
+
+    /**
+     * @param maxCachedBytes memory budget to memoize filtered values. 0 - no memoization
+     */
+    public FirFilterColumn(FirFilter filter, Column argColumn, long maxCachedBytes) {
+        super(new FirFilterSequence(filter, argColumn, BlockCachedSequence.blocksInBudget(maxCachedBytes)));
+    }
+
+    static class FirFilterSequence extends BlockCachedSequence {
+        private final FirFilter filter;
+        private final Column argColumn;
+        private double[] input;
+
+        FirFilterSequence(FirFilter filter, Column argColumn, int maxCachedBlocks) {
+            super(maxCachedBlocks);
+            this.filter = filter;
+            this.argColumn = argColumn;
+        }
+
+        @Override
+        public int size() {
+            return argColumn.size();
+        }
+
+        @Override
+        protected void calculate(int from, int length, double[] result) {
+            int history = filter.numberOfTaps() - 1;
+            if (input == null) {
+                input = new double[history + BLOCK_SIZE];
+            }
+            int inputStart = from - history;
+            for (int i = 0; i < history + length; i++) {
+                input[i] = argColumn.value(Math.max(0, inputStart + i));
+            }
+            filter.process(input, length, result);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.biorecorder.data.frame.impl;
+
+import com.biorecorder.data.sequence.FloatSequence;
+import com.biorecorder.data.utils.PrimitiveUtils;
+
+class FloatRms extends FloatAggFunction {
+    private final Moments moments = new Moments();
+
+    @Override
+    public int add(FloatSequence sequence, int from, int length) {
+        if(count == 0) {
+            moments.reset();
+        }
+        for (int i = 0; i < length; i++) {
+            moments.add(sequence.get(from + i));
+        }
+        count +=length;
+        return count;
+    }
+
+    @Override
+    protected float getValue1() {
+        return PrimitiveUtils.roundDouble2float(moments.rms());
+    }
+}
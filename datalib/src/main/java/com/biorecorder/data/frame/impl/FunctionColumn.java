@@ -1,8 +1,10 @@
 package com.biorecorder.data.frame.impl;
 
 
+import com.biorecorder.data.frame.AffineFunction;
 import com.biorecorder.data.frame.Column;
 import com.biorecorder.data.frame.Function;
+import com.biorecorder.data.frame.Stats;
 import com.biorecorder.data.sequence.DoubleSequence;
 
 
@@ -10,8 +12,30 @@ import com.biorecorder.data.sequence.DoubleSequence;
  * Created by galafit on 11/3/19.
  */
 public class FunctionColumn extends DoubleColumn {
+    private final Function function;
+    private final Column argColumn;
+
     public FunctionColumn(Function function, Column argColumn) {
-        super(new DoubleSequence() {
+        this(function, argColumn, 0);
+    }
+
+    /**
+     * @param maxCachedBytes memory budget to memoize calculated values.
+     *                       If 0 values are calculated on every request.
+     *                       Affine functions are never memoized as they are cheaper to calculate
+     */
+    public FunctionColumn(Function function, Column argColumn, long maxCachedBytes) {
+        super(createSequence(function, argColumn, maxCachedBytes));
+        this.function = function;
+        this.argColumn = argColumn;
+    }
+
+    private static DoubleSequence createSequence(Function function, Column argColumn, long maxCachedBytes) {
+        int maxCachedBlocks = BlockCachedSequence.blocksInBudget(maxCachedBytes);
+        if (maxCachedBlocks > 0 && !(function instanceof AffineFunction)) {
+            return new CachedFunctionSequence(function, argColumn, maxCachedBlocks);
+        }
+        return new DoubleSequence() {
             @Override
             public int size() {
                 return argColumn.size();
@@ -21,6 +45,82 @@ public class FunctionColumn extends DoubleColumn {
             public double get(int index) {
                 return function.apply(argColumn.value(index));
             }
-        });
+        };
+    }
+
+    /**
+     * For affine function statistic is calculated in closed form
+     * from the argument column statistic
+     */
+    @Override
+    public Stats stats(int length) {
+        if (!(function instanceof AffineFunction)) {
+            return super.stats(length);
+        }
+        Stats argStats = argColumn.stats(length);
+        AffineFunction affineFunction = (AffineFunction) function;
+        double gain = affineFunction.getGain();
+        double value1 = affineFunction.apply(argStats.min());
+        double value2 = affineFunction.apply(argStats.max());
+        return new Stats() {
+            @Override
+            public double min() {
+                return Math.min(value1, value2);
+            }
+
+            @Override
+            public double max() {
+                return Math.max(value1, value2);
+            }
+
+            @Override
+            public double mean() {
+                return affineFunction.apply(argStats.mean());
+            }
+
+            @Override
+            public double variance() {
+                return gain * gain * argStats.variance();
+            }
+
+            @Override
+            public boolean isIncreasing() {
+                if (gain == 0) {
+                    return true;
+                }
+                return gain > 0 ? argStats.isIncreasing() : argStats.isDecreasing();
+            }
+
+            @Override
+            public boolean isDecreasing() {
+                if (gain == 0) {
+                    return true;
+                }
+                return gain > 0 ? argStats.isDecreasing() : argStats.isIncreasing();
+            }
+        };
+    }
+
+    static class CachedFunctionSequence extends BlockCachedSequence {
+        private final Function function;
+        private final Column argColumn;
+
+        CachedFunctionSequence(Function function, Column argColumn, int maxCachedBlocks) {
+            super(maxCachedBlocks);
+            this.function = function;
+            this.argColumn = argColumn;
+        }
+
+        @Override
+        public int size() {
+            return argColumn.size();
+        }
+
+        @Override
+        protected void calculate(int from, int length, double[] result) {
+            for (int i = 0; i < length; i++) {
+                result[i] = function.apply(argColumn.value(from + i));
+            }
+        }
     }
 }
@@ -0,0 +1,129 @@
+package com.biorecorder.data.frame.impl;
+
+import com.biorecorder.data.frame.Column;
+import com.biorecorder.data.frame.QuantileSketch;
+import com.biorecorder.data.sequence.IntSequence;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Companion of the column resampled by quantile aggregation:
+ * quantile sketches of the groups the column values were calculated from.
+ * <p>
+ * When such column is resampled again the sketches of its groups
+ * are merged instead of sketching the quantile values,
+ * so quantiles of the coarse groups are the quantiles of the original data
+ * (not quantiles of quantiles) and the original data are not read again.
+ * Sketches are built lazily and kept, so they are accessed under lock.
+ */
+abstract class GroupSketches {
+
+    /**
+     * @return sketch of the data of the given group
+     */
+    abstract QuantileSketch sketch(int group);
+
+    /**
+     * @return sketches of the groups of the given column data
+     */
+    static GroupSketches of(Column column, IntSequence groupIndexes) {
+        return new ResampledSketches(column, null, groupIndexes);
+    }
+
+    /**
+     * @param sketches sketches of the data elements
+     * @return sketches of the groups of elements
+     */
+    static GroupSketches merged(GroupSketches sketches, IntSequence groupIndexes) {
+        return new ResampledSketches(null, sketches, groupIndexes);
+    }
+
+    /**
+     * @return sketches of the groups starting from the given one
+     */
+    GroupSketches offset(int from) {
+        if (from == 0) {
+            return this;
+        }
+        return new OffsetSketches(this, from);
+    }
+
+    /**
+     * @return sketches of the concatenated columns
+     * or null if any of columns has no sketches
+     */
+    static GroupSketches concat(GroupSketches sketches1, int length1, GroupSketches sketches2) {
+        if (sketches1 == null || sketches2 == null) {
+            return null;
+        }
+        return new GroupSketches() {
+            @Override
+            QuantileSketch sketch(int group) {
+                if (group < length1) {
+                    return sketches1.sketch(group);
+                }
+                return sketches2.sketch(group - length1);
+            }
+        };
+    }
+
+    private static class ResampledSketches extends GroupSketches {
+        private final Column column;
+        private final GroupSketches elementSketches;
+        private final IntSequence groupIndexes;
+        private final List<QuantileSketch> sketches = new ArrayList<>();
+
+        ResampledSketches(Column column, GroupSketches elementSketches, IntSequence groupIndexes) {
+            this.column = column;
+            this.elementSketches = elementSketches;
+            this.groupIndexes = groupIndexes;
+        }
+
+        @Override
+        synchronized QuantileSketch sketch(int group) {
+            while (sketches.size() <= group) {
+                sketches.add(null);
+            }
+            QuantileSketch sketch = sketches.get(group);
+            if (sketch == null) {
+                sketch = new QuantileSketch();
+                int from = groupIndexes.get(group);
+                int till = groupIndexes.get(group + 1);
+                for (int i = from; i < till; i++) {
+                    if (elementSketches != null) {
+                        sketch.merge(elementSketches.sketch(i));
+                    } else {
+                        sketch.add(column.value(i));
+                    }
+                }
+                // the last group may still grow when data are appended
+                if (group < groupIndexes.size() - 2) {
+                    sketches.set(group, sketch);
+                }
+            }
+            return sketch;
+        }
+    }
+
+    private static class OffsetSketches extends GroupSketches {
+        private final GroupSketches sketches;
+        private final int offset;
+
+        OffsetSketches(GroupSketches sketches, int offset) {
+            // offsets are composed so there is only one indirection
+            if (sketches instanceof OffsetSketches) {
+                this.sketches = ((OffsetSketches) sketches).sketches;
+                this.offset = ((OffsetSketches) sketches).offset + offset;
+            } else {
+                this.sketches = sketches;
+                this.offset = offset;
+            }
+        }
+
+        @Override
+        QuantileSketch sketch(int group) {
+            return sketches.sketch(offset + group);
+        }
+    }
+}
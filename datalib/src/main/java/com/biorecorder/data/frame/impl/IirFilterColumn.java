@@ -0,0 +1,85 @@
+package com.biorecorder.data.frame.impl;
+
+import com.biorecorder.data.frame.Column;
+import com.biorecorder.data.frame.IirFilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Column of the argument column values filtered by the given IIR filter.
+ * Filtered values are calculated lazily by blocks. The filter state at the beginning
+ * of every block is saved (checkpoint) when the block is passed for the first time,
+ * so random access into the middle of the data never re-filters it from the beginning
+ * but only from the start of the corresponding block.
+ * <p>
+ * The signal before the beginning of the data is assumed to be equal to the first sample.
+ */
+public class IirFilterColumn extends DoubleColumn {
+
+    /**
+     * @param maxCachedBytes memory budget to memoize filtered values. 0 - no memoization
+     */
+    public IirFilterColumn(IirFilter filter, Column argColumn, long maxCachedBytes) {
+        super(new IirFilterSequence(filter, argColumn, BlockCachedSequence.blocksInBudget(maxCachedBytes)));
+    }
+
+    static class IirFilterSequence extends BlockCachedSequence {
+        private final IirFilter filter;
+        private final Column argColumn;
+        // checkpoints.get(k) - filter state before the sample k * BLOCK_SIZE
+        private final List<double[]> checkpoints = new ArrayList<>();
+        private final double[] state;
+
+        IirFilterSequence(IirFilter filter, Column argColumn, int maxCachedBlocks) {
+            super(maxCachedBlocks);
+            this.filter = filter;
+            this.argColumn = argColumn;
+            state = new double[filter.stateSize()];
+        }
+
+        @Override
+        public int size() {
+            return argColumn.size();
+        }
+
+        @Override
+        protected void calculate(int from, int length, double[] result) {
+            int blockNumber = from / BLOCK_SIZE;
+            restoreCheckpoint(blockNumber);
+            int blockStart = blockNumber * BLOCK_SIZE;
+            for (int i = blockStart; i < from; i++) {
+                filter.process(argColumn.value(i), state);
+            }
+            for (int i = 0; i < length; i++) {
+                result[i] = filter.process(argColumn.value(from + i), state);
+            }
+            int end = from + length;
+            if (end == blockStart + BLOCK_SIZE && checkpoints.size() == blockNumber + 1) {
+                checkpoints.add(Arrays.copyOf(state, state.length));
+            }
+        }
+
+        /**
+         * Sets the state to the checkpoint of the given block
+         * passing (and saving checkpoints of) all not yet passed preceding blocks
+         */
+        private void restoreCheckpoint(int blockNumber) {
+            if (checkpoints.isEmpty()) {
+                filter.initState(argColumn.value(0), state);
+                checkpoints.add(Arrays.copyOf(state, state.length));
+            }
+            int lastCheckpoint = Math.min(blockNumber, checkpoints.size() - 1);
+            double[] checkpoint = checkpoints.get(lastCheckpoint);
+            System.arraycopy(checkpoint, 0, state, 0, state.length);
+            for (int k = lastCheckpoint; k < blockNumber; k++) {
+                int blockStart = k * BLOCK_SIZE;
+                for (int i = blockStart; i < blockStart + BLOCK_SIZE; i++) {
+                    filter.process(argColumn.value(i), state);
+                }
+                checkpoints.add(Arrays.copyOf(state, state.length));
+            }
+        }
+    }
+}
@@ -9,6 +9,8 @@ import com.biorecorder.data.sequence.IntSequence;
 import com.biorecorder.data.utils.PrimitiveUtils;
 import com.biorecorder.data.sequence.SequenceUtils;
 
+import java.util.Arrays;
+
 
 /**************************************
  * This file is automatically created.
@@ -19,11 +21,45 @@ import com.biorecorder.data.sequence.SequenceUtils;
 class IntColumn implements Column {
     private IntSequence dataSequence;
     private StatsInt stats;
+    // optional prefix sums (may be shared with the parent column of offset views)
+    private PrefixSumIndex prefixSums;
+    private int prefixSumsOffset;
+    // sketches of the groups if the column is the result of quantile resampling
+    private GroupSketches groupSketches;
 
     public IntColumn(IntSequence data) {
         this.dataSequence = data;
     }
 
+    @Override
+    public void enablePrefixSums() {
+        if (prefixSums == null) {
+            prefixSums = PrefixSumIndex.of(dataSequence);
+            prefixSumsOffset = 0;
+        }
+    }
+
+    private Column withPrefixSums(IntColumn view, int offset) {
+        view.prefixSums = prefixSums;
+        view.prefixSumsOffset = prefixSumsOffset + offset;
+        return withGroupSketches(view, offset);
+    }
+
+    private Column withGroupSketches(IntColumn column, int offset) {
+        if (groupSketches != null) {
+            column.groupSketches = groupSketches.offset(offset);
+        }
+        return column;
+    }
+
+    GroupSketches groupSketches() {
+        return groupSketches;
+    }
+
+    void setGroupSketches(GroupSketches groupSketches) {
+        this.groupSketches = groupSketches;
+    }
+
     public int intValue(int index) {
         return dataSequence.get(index);
     }
@@ -49,84 +85,116 @@ class IntColumn implements Column {
         return DataType.Integer;
     }
 
+    /**
+     * Slices are materialized by fixed size blocks with bulk copies
+     * from array backed data. Bounded slice is materialized at once,
+     * open-ended one - lazily, block by block, when its data are requested
+     */
     @Override
     public Column slice(int from, int length) {
-        IntArrayList slicedData = new IntArrayList(length);
-        for (int i = 0; i < length; i++) {
-            slicedData.add(dataSequence.get(from + i));
-        }
-        return new IntColumn(slicedData);
+        SliceCache slicedData = sliceCache(dataSequence, from, length);
+        slicedData.cacheAll();
+        return withGroupSketches(new IntColumn(slicedData), from);
     }
 
     @Override
     public Column slice(int from) {
-        IntSequence slicedSequence = new IntSequence() {
-            IntArrayList slicedData = new IntArrayList();
-            @Override
-            public int size() {
-                return dataSequence.size() - from;
+        return withGroupSketches(new IntColumn(sliceCache(dataSequence, from, -1)), from);
+    }
+
+    /**
+     * @param length - slice length or -1 if the slice must follow
+     *               the size of the underlying data
+     */
+    private static SliceCache sliceCache(IntSequence data, int from, int length) {
+        if (data instanceof SliceCache) {
+            return ((SliceCache) data).slice(from, length);
+        }
+        if (data instanceof OffsetView) {
+            OffsetView offsetView = (OffsetView) data;
+            if (length < 0 && offsetView.length >= 0) {
+                length = offsetView.length - from;
             }
+            return new SliceCache(offsetView.data, offsetView.offset + from, length);
+        }
+        return new SliceCache(data, from, length);
+    }
 
-            @Override
-            public int get(int index) {
-                if(index >= slicedData.size()) {
-                    for (int i = slicedData.size(); i <= index; i++) {
-                        slicedData.add(dataSequence.get(from + i));
-                    }
-                }
-                return slicedData.get(index);
+    private static void copy(IntSequence data, int from, int[] dest, int destPos, int length) {
+        if (data instanceof IntArrayList) {
+            ((IntArrayList) data).toArray(dest, from, destPos, length);
+        } else if (data instanceof SliceCache) {
+            ((SliceCache) data).toArray(dest, from, destPos, length);
+        } else if (data instanceof OffsetView) {
+            OffsetView offsetView = (OffsetView) data;
+            copy(offsetView.data, offsetView.offset + from, dest, destPos, length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                dest[destPos + i] = data.get(from + i);
             }
-        };
-        return new IntColumn(slicedSequence);
+        }
     }
 
+    /**
+     * Views are composed instead of stacked: a view of a view refers directly
+     * to the underlying data, so every element access has only one indirection
+     * regardless of the views depth
+     */
     @Override
     public Column view(int from) {
-        IntSequence subSequence = new IntSequence() {
-            @Override
-            public int size() {
-                return dataSequence.size() - from;
-            }
-
-            @Override
-            public int get(int index) {
-                return dataSequence.get(index + from);
-            }
-        };
-        return new IntColumn(subSequence);
+        return withPrefixSums(new IntColumn(offsetView(dataSequence, from, -1)), from);
     }
 
-
     @Override
     public Column view(int from, int length) {
-        IntSequence subSequence = new IntSequence() {
-            @Override
-            public int size() {
-                return length;
-            }
-
-            @Override
-            public int get(int index) {
-                return dataSequence.get(index + from);
-            }
-        };
-        return new IntColumn(subSequence);
+        return withPrefixSums(new IntColumn(offsetView(dataSequence, from, length)), from);
     }
 
     @Override
     public Column view(int[] order) {
-        IntSequence subSequence = new IntSequence() {
-            @Override
-            public int size() {
-                return order.length;
+        return new IntColumn(orderView(dataSequence, order));
+    }
+
+    /**
+     * @param length - view length or -1 if the view must follow
+     *               the size of the underlying data
+     */
+    private static IntSequence offsetView(IntSequence data, int from, int length) {
+        if (data instanceof OffsetView) {
+            OffsetView offsetView = (OffsetView) data;
+            if (length < 0 && offsetView.length >= 0) {
+                length = offsetView.length - from;
             }
+            return new OffsetView(offsetView.data, offsetView.offset + from, length);
+        }
+        if (data instanceof OrderView) {
+            OrderView orderView = (OrderView) data;
+            if (length < 0) {
+                length = orderView.length - from;
+            }
+            return new OrderView(orderView.data, orderView.order, orderView.offset + from, length);
+        }
+        return new OffsetView(data, from, length);
+    }
 
-            @Override
-            public int get(int index) {
-                return dataSequence.get(order[index]);
+    private static IntSequence orderView(IntSequence data, int[] order) {
+        if (data instanceof OffsetView) {
+            OffsetView offsetView = (OffsetView) data;
+            int[] remappedOrder = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                remappedOrder[i] = order[i] + offsetView.offset;
             }
-        };
-        return new IntColumn(subSequence);
+            return new OrderView(offsetView.data, remappedOrder, 0, order.length);
+        }
+        if (data instanceof OrderView) {
+            OrderView orderView = (OrderView) data;
+            int[] remappedOrder = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                remappedOrder[i] = orderView.order[order[i] + orderView.offset];
+            }
+            return new OrderView(orderView.data, remappedOrder, 0, order.length);
+        }
+        return new OrderView(data, order, 0, order.length);
     }
 
     @Override
@@ -134,6 +202,15 @@ class IntColumn implements Column {
         return SequenceUtils.bisect(dataSequence, PrimitiveUtils.roundDouble2int(value), from, length);
     }
 
+    @Override
+    public void bisect(double[] sortedValues, int from, int length, int[] resultIndexes) {
+        int[] castedValues = new int[sortedValues.length];
+        for (int i = 0; i < sortedValues.length; i++) {
+            castedValues[i] = PrimitiveUtils.roundDouble2int(sortedValues[i]);
+        }
+        SequenceUtils.bisect(dataSequence, castedValues, from, length, resultIndexes);
+    }
+
     @Override
     public int[] sort(int from, int length, boolean isParallel) {
         return SequenceUtils.sort(dataSequence, from, length, isParallel);
@@ -149,6 +226,59 @@ class IntColumn implements Column {
         return group(new IntIntervalProvider(intervalCasted), length);
     }
 
+    @Override
+    public IntSequence group(double[] edges, DynamicSize length) {
+        double[] sortedEdges = Arrays.copyOf(edges, edges.length);
+        Arrays.sort(sortedEdges);
+        int[] edgeIndexes = new int[sortedEdges.length];
+        IntSequence groupIndexes = new IntSequence() {
+            IntArrayList groupIndexesList = new IntArrayList();
+            int groupedLength = -1;
+
+            @Override
+            public int size() {
+                update();
+                return groupIndexesList.size();
+            }
+
+            @Override
+            public int get(int index) {
+                return groupIndexesList.get(index);
+            }
+
+            private void update() {
+                int l = length.size();
+                if (l == groupedLength) {
+                    return;
+                }
+                groupedLength = l;
+                groupIndexesList.clear();
+                if (l == 0) {
+                    return;
+                }
+                // all edges are resolved in one pass
+                bisect(sortedEdges, 0, l, edgeIndexes);
+                int previousIndex = 0;
+                for (int i = 0; i < edgeIndexes.length; i++) {
+                    int index = edgeIndexes[i];
+                    // bisect may find any of the elements equal to the edge
+                    // but the edge is the lower boundary so all of them belong to the bin
+                    if (index < l && dataSequence.get(index) == PrimitiveUtils.roundDouble2int(sortedEdges[i])) {
+                        index = SequenceUtils.bisectLeft(dataSequence, dataSequence.get(index), previousIndex, index - previousIndex);
+                    }
+                    int groupsCount = groupIndexesList.size();
+                    if (index < l && (groupsCount == 0 || index > groupIndexesList.get(groupsCount - 1))) {
+                        groupIndexesList.add(index);
+                    }
+                    previousIndex = index;
+                }
+                // add last "closing" group index
+                groupIndexesList.add(l);
+            }
+        };
+        return groupIndexes;
+    }
+
     @Override
     public IntSequence group(TimeInterval timeInterval, DynamicSize length) {
         return group(new TimeIntervalProvider(timeInterval), length);
@@ -228,6 +358,12 @@ class IntColumn implements Column {
 
     @Override
     public Column resample(Aggregation aggregation, IntSequence groupIndexes, boolean isDataAppendMode) {
+        if (aggregation.isQuantile()) {
+            return resampleQuantile(aggregation.quantile(), groupIndexes, isDataAppendMode);
+        }
+        boolean isRangeSum = aggregation == Aggregation.SUM || aggregation == Aggregation.AVERAGE;
+        PrefixSumIndex groupSums = isRangeSum ? prefixSums : null;
+        int groupSumsOffset = prefixSumsOffset;
         IntSequence resultantSequence = new IntSequence() {
             private IntAggFunction aggFunction = getAggFunction(aggregation);
 
@@ -238,6 +374,17 @@ class IntColumn implements Column {
 
             @Override
             public int get(int index) {
+                if (groupSums != null) {
+                    int from = groupIndexes.get(index);
+                    int length = groupIndexes.get(index + 1) - from;
+                    if (length > 0) {
+                        // O(1) per group whatever the group size
+                        if (aggregation == Aggregation.SUM) {
+                            return PrimitiveUtils.roundDouble2int(groupSums.sum(groupSumsOffset + from, length));
+                        }
+                        return PrimitiveUtils.roundDouble2int(groupSums.average(groupSumsOffset + from, length));
+                    }
+                }
                 aggFunction.reset();
                 int n = aggFunction.getN();
                 int length = groupIndexes.get(index + 1) - groupIndexes.get(index) - n;
@@ -251,6 +398,36 @@ class IntColumn implements Column {
         return new IntColumn(resultantSequence);
     }
 
+    /**
+     * Quantiles are taken from the sketches of the groups. If the column itself
+     * is the result of quantile resampling the sketches of its groups are merged
+     * so the result is the quantiles of the original data
+     */
+    private Column resampleQuantile(double quantile, IntSequence groupIndexes, boolean isDataAppendMode) {
+        GroupSketches sketches = groupSketches != null
+                ? GroupSketches.merged(groupSketches, groupIndexes)
+                : GroupSketches.of(this, groupIndexes);
+        IntSequence resultantSequence = new IntSequence() {
+            @Override
+            public int size() {
+                return groupsCount(groupIndexes, isDataAppendMode);
+            }
+
+            @Override
+            public int get(int index) {
+                QuantileSketch sketch = sketches.sketch(index);
+                if (sketch.count() == 0) {
+                    String errMsg = "No elements was added to group. Grouping function can not be calculated.";
+                    throw new IllegalStateException(errMsg);
+                }
+                return PrimitiveUtils.roundDouble2int(sketch.quantile(quantile));
+            }
+        };
+        IntColumn resultantColumn = new IntColumn(resultantSequence);
+        resultantColumn.groupSketches = sketches;
+        return resultantColumn;
+    }
+
     @Override
     public Column resample(Aggregation aggregation, int points, boolean isDataAppendMode) {
         return resample(aggregation, groupIndexes(points), isDataAppendMode);
@@ -288,9 +465,12 @@ class IntColumn implements Column {
         int max1 = min1;
         boolean isIncreasing1 = true;
         boolean isDecreasing1 = true;
+        Moments moments1 = new Moments();
+        moments1.add(min1);
 
         for (int i = 1; i < length; i++) {
             int data_i = dataSequence.get(i + from);
+            moments1.add(data_i);
             min1 = (int)Math.min(min1, data_i);
             max1 = (int)Math.max(max1, data_i);
             if (isIncreasing1 || isDecreasing1) {
@@ -304,7 +484,7 @@ class IntColumn implements Column {
             }
         }
 
-        return new StatsInt(length, min1, max1, isIncreasing1, isDecreasing1);
+        return new StatsInt(length, min1, max1, moments1, isIncreasing1, isDecreasing1);
     }
 
     @Override
@@ -331,22 +511,199 @@ class IntColumn implements Column {
             int diff = (int)(dataSequence.get(stats.count) - dataSequence.get(stats.count() - 1));
             boolean isIncreasing = stats.isIncreasing() && statsAdditional.isIncreasing() && diff >= 0;
             boolean isDecreasing = stats.isDecreasing() && statsAdditional.isDecreasing() && diff <= 0;
-            stats = new StatsInt(length, min, max, isIncreasing, isDecreasing);
+            // moments of the appended data are merged with the previous ones (no rescan)
+            Moments moments = new Moments();
+            moments.merge(stats.moments);
+            moments.merge(statsAdditional.moments);
+            stats = new StatsInt(length, min, max, moments, isIncreasing, isDecreasing);
         }
         return stats;
     }
 
+    /**
+     * Lazily materialized copy of the data. Data are copied by blocks
+     * of fixed size. Filled blocks never change so slices of the cache
+     * starting at the block boundary share them instead of copying and
+     * only the last not filled block is copied again on write.
+     * Blocks are filled under the lock and published by the volatile
+     * cached size so concurrent readers see only filled values.
+     * Bounded slice releases the underlying data when all its values are cached.
+     */
+    static class SliceCache implements IntSequence {
+        private static final int BLOCK_BITS = 12;
+        private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+        private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+        // null when the bounded slice is cached completely
+        private IntSequence data;
+        private final int offset;
+        private final int length;
+        private int[][] blocks = new int[1][];
+        private volatile int cachedSize;
+
+        SliceCache(IntSequence data, int offset, int length) {
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int size() {
+            if (length < 0) {
+                return data.size() - offset;
+            }
+            return length;
+        }
+
+        @Override
+        public int get(int index) {
+            if (index >= cachedSize) {
+                cache(index);
+            }
+            return blocks[index >>> BLOCK_BITS][index & BLOCK_MASK];
+        }
+
+        void cacheAll() {
+            int size = size();
+            if (size > 0) {
+                cache(size - 1);
+            }
+        }
+
+        void toArray(int[] dest, int sourcePos, int destPos, int length) {
+            if (length == 0) {
+                return;
+            }
+            int lastIndex = sourcePos + length - 1;
+            if (lastIndex >= cachedSize) {
+                cache(lastIndex);
+            }
+            while (length > 0) {
+                int positionInBlock = sourcePos & BLOCK_MASK;
+                int n = Math.min(BLOCK_SIZE - positionInBlock, length);
+                System.arraycopy(blocks[sourcePos >>> BLOCK_BITS], positionInBlock, dest, destPos, n);
+                sourcePos += n;
+                destPos += n;
+                length -= n;
+            }
+        }
+
+        SliceCache slice(int from, int length) {
+            if (length < 0 && this.length >= 0) {
+                length = this.length - from;
+            }
+            SliceCache slice = new SliceCache(this, from, length);
+            int firstBlock = from >>> BLOCK_BITS;
+            int filledBlocks = cachedSize >>> BLOCK_BITS;
+            if ((from & BLOCK_MASK) == 0 && filledBlocks > firstBlock) {
+                slice.blocks = Arrays.copyOfRange(blocks, firstBlock, filledBlocks);
+                slice.cachedSize = (filledBlocks - firstBlock) << BLOCK_BITS;
+                if (length >= 0 && slice.cachedSize > length) {
+                    slice.cachedSize = length;
+                }
+                slice.releaseDataIfCached();
+            }
+            return slice;
+        }
+
+        private void releaseDataIfCached() {
+            if (length >= 0 && cachedSize == length) {
+                data = null;
+            }
+        }
+
+        private synchronized void cache(int index) {
+            int size = size();
+            if (index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            // cache up to the end of the block containing the index
+            int end = (int) Math.min(((long) (index >>> BLOCK_BITS) + 1) << BLOCK_BITS, size);
+            while (cachedSize < end) {
+                int blockNumber = cachedSize >>> BLOCK_BITS;
+                int positionInBlock = cachedSize & BLOCK_MASK;
+                int n = Math.min(BLOCK_SIZE - positionInBlock, end - cachedSize);
+                if (blockNumber >= blocks.length) {
+                    blocks = Arrays.copyOf(blocks, Math.max(blocks.length * 2, blockNumber + 1));
+                }
+                int[] block = blocks[blockNumber];
+                int requiredBlockLength = positionInBlock + n;
+                if (block == null) {
+                    block = new int[requiredBlockLength];
+                } else if (block.length < requiredBlockLength) {
+                    // last block grows in append mode
+                    block = Arrays.copyOf(block, Math.min(BLOCK_SIZE, Math.max(requiredBlockLength, block.length * 2)));
+                }
+                blocks[blockNumber] = block;
+                copy(data, offset + cachedSize, block, positionInBlock, n);
+                cachedSize += n;
+            }
+            releaseDataIfCached();
+        }
+    }
+
+    static class OffsetView implements IntSequence {
+        private final IntSequence data;
+        private final int offset;
+        private final int length;
+
+        OffsetView(IntSequence data, int offset, int length) {
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int size() {
+            if (length < 0) {
+                return data.size() - offset;
+            }
+            return length;
+        }
+
+        @Override
+        public int get(int index) {
+            return data.get(index + offset);
+        }
+    }
+
+    static class OrderView implements IntSequence {
+        private final IntSequence data;
+        private final int[] order;
+        private final int offset;
+        private final int length;
+
+        OrderView(IntSequence data, int[] order, int offset, int length) {
+            this.data = data;
+            this.order = order;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int size() {
+            return length;
+        }
+
+        @Override
+        public int get(int index) {
+            return data.get(order[index + offset]);
+        }
+    }
+
     class StatsInt implements Stats {
         private int count;
         private final int min;
         private final int max;
+        private final Moments moments;
         private final boolean isIncreasing;
         private final boolean isDecreasing;
 
-        public StatsInt(int count, int min, int max, boolean isIncreasing, boolean isDecreasing) {
+        public StatsInt(int count, int min, int max, Moments moments, boolean isIncreasing, boolean isDecreasing) {
             this.count = count;
             this.min = min;
             this.max = max;
+            this.moments = moments;
             this.isIncreasing = isIncreasing;
             this.isDecreasing = isDecreasing;
         }
@@ -373,6 +730,16 @@ class IntColumn implements Column {
             return max;
         }
 
+        @Override
+        public double mean() {
+            return moments.mean();
+        }
+
+        @Override
+        public double variance() {
+            return moments.variance();
+        }
+
         @Override
         public boolean isIncreasing() {
             return isIncreasing;
@@ -0,0 +1,25 @@
+package com.biorecorder.data.frame.impl;
+
+import com.biorecorder.data.sequence.IntSequence;
+import com.biorecorder.data.utils.PrimitiveUtils;
+
+class IntVariance extends IntAggFunction {
+    private final Moments moments = new Moments();
+
+    @Override
+    public int add(IntSequence sequence, int from, int length) {
+        if(count == 0) {
+            moments.reset();
+        }
+        for (int i = 0; i < length; i++) {
+            moments.add(sequence.get(from + i));
+        }
+        count +=length;
+        return count;
+    }
+
+    @Override
+    protected int getValue1() {
+        return PrimitiveUtils.roundDouble2int(moments.variance());
+    }
+}
@@ -3,6 +3,7 @@ package com.biorecorder.data.frame.impl;
 import com.biorecorder.data.frame.*;
 import com.biorecorder.data.sequence.IntSequence;
 import com.biorecorder.data.sequence.LongSequence;
+import com.biorecorder.data.utils.PrimitiveUtils;
 
 /**
  * Created by galafit on 7/5/19.
@@ -53,6 +54,14 @@ public class LongRegularColumn extends LongColumn implements RegularColumn{
         return index;
     }
 
+    @Override
+    public void bisect(double[] sortedValues, int from, int length, int[] resultIndexes) {
+        // index is calculated arithmetically so there is nothing to share between searches
+        for (int i = 0; i < sortedValues.length; i++) {
+            resultIndexes[i] = bisect(sortedValues[i], from, length);
+        }
+    }
+
     @Override
     public Stats stats(int length) {
         return new Stats() {
@@ -66,6 +75,16 @@ public class LongRegularColumn extends LongColumn implements RegularColumn{
                 return value(length - 1);
             }
 
+            @Override
+            public double mean() {
+                return (value(0) + value(length - 1)) / 2;
+            }
+
+            @Override
+            public double variance() {
+                return progressionVariance(length);
+            }
+
             @Override
             public boolean isIncreasing() {
                 return true;
@@ -138,6 +157,36 @@ public class LongRegularColumn extends LongColumn implements RegularColumn{
                 long stepNew = step * points;
                 return new LongRegularColumn(startNew, stepNew, sizeNew);
             }
+            case VARIANCE: {
+                // all groups have the same variance
+                long startNew = PrimitiveUtils.roundDouble2long(progressionVariance(points));
+                return new LongRegularColumn(startNew, 0, sizeNew);
+            }
+            case STDDEV: {
+                long startNew = PrimitiveUtils.roundDouble2long(Math.sqrt(progressionVariance(points)));
+                return new LongRegularColumn(startNew, 0, sizeNew);
+            }
+            case RMS: {
+                LongSequence resultantSequence = new LongSequence() {
+                    @Override
+                    public int size() {
+                        return sizeNew;
+                    }
+
+                    @Override
+                    public long get(int index) {
+                        return PrimitiveUtils.roundDouble2long(rms(index * points, points));
+                    }
+                };
+                return new LongColumn(resultantSequence);
+            }
+            case MEDIAN:
+            case PERCENTILE_5:
+            case PERCENTILE_25:
+            case PERCENTILE_75:
+            case PERCENTILE_95:
+                // values are calculated and added to the quantile sketch group by group
+                return super.resample(aggregation, points, isDataAppendMode);
             default:
                 String errMsg = "Unsupported Aggregate function: "+ aggregation;
                 throw new IllegalArgumentException(errMsg);
@@ -219,6 +268,58 @@ public class LongRegularColumn extends LongColumn implements RegularColumn{
                 };
                 return new LongColumn(resultantSequence);
             }
+            case VARIANCE: {
+                LongSequence resultantSequence = new LongSequence() {
+                    @Override
+                    public int size() {
+                        return groupsCount(groupIndexes, isDataAppendMode);
+                    }
+
+                    @Override
+                    public long get(int index) {
+                        int length = groupIndexes.get(index + 1) - groupIndexes.get(index);
+                        return PrimitiveUtils.roundDouble2long(progressionVariance(length));
+                    }
+                };
+                return new LongColumn(resultantSequence);
+            }
+            case STDDEV: {
+                LongSequence resultantSequence = new LongSequence() {
+                    @Override
+                    public int size() {
+                        return groupsCount(groupIndexes, isDataAppendMode);
+                    }
+
+                    @Override
+                    public long get(int index) {
+                        int length = groupIndexes.get(index + 1) - groupIndexes.get(index);
+                        return PrimitiveUtils.roundDouble2long(Math.sqrt(progressionVariance(length)));
+                    }
+                };
+                return new LongColumn(resultantSequence);
+            }
+            case RMS: {
+                LongSequence resultantSequence = new LongSequence() {
+                    @Override
+                    public int size() {
+                        return groupsCount(groupIndexes, isDataAppendMode);
+                    }
+
+                    @Override
+                    public long get(int index) {
+                        int length = groupIndexes.get(index + 1) - groupIndexes.get(index);
+                        return PrimitiveUtils.roundDouble2long(rms(groupIndexes.get(index), length));
+                    }
+                };
+                return new LongColumn(resultantSequence);
+            }
+            case MEDIAN:
+            case PERCENTILE_5:
+            case PERCENTILE_25:
+            case PERCENTILE_75:
+            case PERCENTILE_95:
+                // values are calculated and added to the quantile sketch group by group
+                return super.resample(aggregateFunction, groupIndexes, isDataAppendMode);
             default:
                 String errMsg = "Unsupported Aggregate function: "+aggregateFunction;
                 throw new IllegalArgumentException(errMsg);
@@ -233,4 +334,14 @@ public class LongRegularColumn extends LongColumn implements RegularColumn{
         return sum(from, length) / length;
     }
 
+    // variance of the arithmetic progression
+    private double progressionVariance(int length) {
+        return (double) step * step * ((double) length * length - 1) / 12;
+    }
+
+    private double rms(int from, int length) {
+        double mean = (longValue(from) + longValue(from + length - 1)) / 2.0;
+        return Math.sqrt(mean * mean + progressionVariance(length));
+    }
+
 }
@@ -0,0 +1,25 @@
+package com.biorecorder.data.frame.impl;
+
+import com.biorecorder.data.sequence.LongSequence;
+import com.biorecorder.data.utils.PrimitiveUtils;
+
+class LongStdDev extends LongAggFunction {
+    private final Moments moments = new Moments();
+
+    @Override
+    public int add(LongSequence sequence, int from, int length) {
+        if(count == 0) {
+            moments.reset();
+        }
+        for (int i = 0; i < length; i++) {
+            moments.add(sequence.get(from + i));
+        }
+        count +=length;
+        return count;
+    }
+
+    @Override
+    protected long getValue1() {
+        return PrimitiveUtils.roundDouble2long(moments.standardDeviation());
+    }
+}
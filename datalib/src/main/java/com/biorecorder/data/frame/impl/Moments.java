@@ -0,0 +1,64 @@
+package com.biorecorder.data.frame.impl;
+
+/**
+ * Count, mean and the sum of squared deviations from the mean of a data stream.
+ * Values are added by the Welford algorithm and partial moments are merged
+ * by the Chan et al. formula, so unlike the naive "sum of squares minus squared sum"
+ * the variance stays accurate for signals with a large DC offset.
+ * Variance is the population one (divided by count).
+ */
+class Moments {
+    private long count;
+    private double mean;
+    private double m2;
+
+    public void reset() {
+        count = 0;
+        mean = 0;
+        m2 = 0;
+    }
+
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+    }
+
+    public void merge(Moments moments) {
+        if (moments.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            count = moments.count;
+            mean = moments.mean;
+            m2 = moments.m2;
+            return;
+        }
+        long resultantCount = count + moments.count;
+        double delta = moments.mean - mean;
+        mean += delta * moments.count / resultantCount;
+        m2 += moments.m2 + delta * delta * ((double) count * moments.count / resultantCount);
+        count = resultantCount;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double mean() {
+        return mean;
+    }
+
+    public double variance() {
+        return m2 / count;
+    }
+
+    public double standardDeviation() {
+        return Math.sqrt(variance());
+    }
+
+    public double rms() {
+        return Math.sqrt(mean * mean + variance());
+    }
+}
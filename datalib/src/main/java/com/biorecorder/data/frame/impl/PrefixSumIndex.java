@@ -0,0 +1,185 @@
+package com.biorecorder.data.frame.impl;
+
+import com.biorecorder.data.list.DoubleArrayList;
+import com.biorecorder.data.list.LongArrayList;
+import com.biorecorder.data.sequence.DoubleSequence;
+import com.biorecorder.data.sequence.FloatSequence;
+import com.biorecorder.data.sequence.IntSequence;
+import com.biorecorder.data.sequence.LongSequence;
+import com.biorecorder.data.sequence.ShortSequence;
+
+/**
+ * Companion index of the column to calculate the sum of any range in O(1).
+ * Prefix sums are stored only for every STEP-th element (to bound memory),
+ * so the sum of a range is the difference of two stored prefix sums
+ * plus the sums of less than STEP elements at each end of the range.
+ * <p>
+ * For integer columns sums are exact (long). For floating point columns
+ * prefix sums are accumulated with Kahan compensated summation and
+ * the compensation is stored with every prefix sum, so the difference
+ * of two prefix sums keeps the accuracy of the compensated sums.
+ * The index is extended incrementally when the column grows,
+ * so it is read under lock.
+ */
+class PrefixSumIndex {
+    private static final int STEP_BITS = 6;
+    private static final int STEP = 1 << STEP_BITS;
+
+    private final LongSequence longData;
+    private final DoubleSequence doubleData;
+    private final boolean isIntegral;
+    // prefix sum of the elements [0, k * STEP)
+    private final LongArrayList longSums = new LongArrayList();
+    private final DoubleArrayList doubleSums = new DoubleArrayList();
+    // Kahan compensation of the corresponding double prefix sum
+    private final DoubleArrayList compensations = new DoubleArrayList();
+
+    private PrefixSumIndex(LongSequence longData, DoubleSequence doubleData) {
+        this.longData = longData;
+        this.doubleData = doubleData;
+        isIntegral = longData != null;
+        if (isIntegral) {
+            longSums.add(0);
+        } else {
+            doubleSums.add(0);
+            compensations.add(0);
+        }
+    }
+
+    static PrefixSumIndex of(ShortSequence data) {
+        return new PrefixSumIndex(new LongSequence() {
+            @Override
+            public int size() {
+                return data.size();
+            }
+
+            @Override
+            public long get(int index) {
+                return data.get(index);
+            }
+        }, null);
+    }
+
+    static PrefixSumIndex of(IntSequence data) {
+        return new PrefixSumIndex(new LongSequence() {
+            @Override
+            public int size() {
+                return data.size();
+            }
+
+            @Override
+            public long get(int index) {
+                return data.get(index);
+            }
+        }, null);
+    }
+
+    static PrefixSumIndex of(LongSequence data) {
+        return new PrefixSumIndex(data, null);
+    }
+
+    static PrefixSumIndex of(FloatSequence data) {
+        return new PrefixSumIndex(null, new DoubleSequence() {
+            @Override
+            public int size() {
+                return data.size();
+            }
+
+            @Override
+            public double get(int index) {
+                return data.get(index);
+            }
+        });
+    }
+
+    static PrefixSumIndex of(DoubleSequence data) {
+        return new PrefixSumIndex(null, data);
+    }
+
+    /**
+     * @return sum of the elements [from, from + length)
+     */
+    public synchronized double sum(int from, int length) {
+        if (isIntegral) {
+            return longSum(from, from + length);
+        }
+        return doubleSum(from, from + length);
+    }
+
+    /**
+     * @return average of the elements [from, from + length) calculated the same way
+     * as the AVERAGE aggregation does (integer division for integer columns)
+     */
+    public synchronized double average(int from, int length) {
+        if (isIntegral) {
+            return longSum(from, from + length) / length;
+        }
+        return doubleSum(from, from + length) / length;
+    }
+
+    private long longSum(int from, int to) {
+        int firstPoint = (from + STEP - 1) >>> STEP_BITS;
+        int lastPoint = to >>> STEP_BITS;
+        if (firstPoint >= lastPoint) {
+            return scanLong(from, to);
+        }
+        update(lastPoint);
+        return longSums.get(lastPoint) - longSums.get(firstPoint)
+                + scanLong(from, firstPoint << STEP_BITS) + scanLong(lastPoint << STEP_BITS, to);
+    }
+
+    private double doubleSum(int from, int to) {
+        int firstPoint = (from + STEP - 1) >>> STEP_BITS;
+        int lastPoint = to >>> STEP_BITS;
+        if (firstPoint >= lastPoint) {
+            return scanDouble(from, to);
+        }
+        update(lastPoint);
+        double sums = doubleSums.get(lastPoint) - doubleSums.get(firstPoint);
+        double compensation = compensations.get(lastPoint) - compensations.get(firstPoint);
+        return sums - compensation
+                + scanDouble(from, firstPoint << STEP_BITS) + scanDouble(lastPoint << STEP_BITS, to);
+    }
+
+    private long scanLong(int from, int to) {
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += longData.get(i);
+        }
+        return sum;
+    }
+
+    private double scanDouble(int from, int to) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += doubleData.get(i);
+        }
+        return sum;
+    }
+
+    /**
+     * Calculates prefix sums up to the given point
+     */
+    private void update(int point) {
+        if (isIntegral) {
+            for (int k = longSums.size(); k <= point; k++) {
+                int blockStart = (k - 1) << STEP_BITS;
+                longSums.add(longSums.get(k - 1) + scanLong(blockStart, blockStart + STEP));
+            }
+        } else {
+            for (int k = doubleSums.size(); k <= point; k++) {
+                int blockStart = (k - 1) << STEP_BITS;
+                double sum = doubleSums.get(k - 1);
+                double compensation = compensations.get(k - 1);
+                for (int i = blockStart; i < blockStart + STEP; i++) {
+                    double y = doubleData.get(i) - compensation;
+                    double t = sum + y;
+                    compensation = (t - sum) - y;
+                    sum = t;
+                }
+                doubleSums.add(sum);
+                compensations.add(compensation);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.biorecorder.data.frame.impl;
+
+import com.biorecorder.data.frame.Column;
+import com.biorecorder.data.frame.RateConverter;
+
+/**
+ * Column of the argument column values converted to another sample rate
+ * by the given converter. Values are calculated lazily by blocks.
+ * Samples before the beginning of the data are taken equal to the first sample.
+ */
+public class RateConversionColumn extends DoubleColumn {
+
+    /**
+     * @param maxCachedBytes memory budget to memoize converted values. 0 - no memoization
+     */
+    public RateConversionColumn(RateConverter converter, Column argColumn, long maxCachedBytes) {
+        super(new RateConversionSequence(converter, argColumn, BlockCachedSequence.blocksInBudget(maxCachedBytes)));
+    }
+
+    static class RateConversionSequence extends BlockCachedSequence {
+        private final RateConverter converter;
+        private final Column argColumn;
+        private double[] input = new double[0];
+
+        RateConversionSequence(RateConverter converter, Column argColumn, int maxCachedBlocks) {
+            super(maxCachedBlocks);
+            this.converter = converter;
+            this.argColumn = argColumn;
+        }
+
+        @Override
+        public int size() {
+            return converter.outputSize(argColumn.size());
+        }
+
+        @Override
+        protected void calculate(int from, int length, double[] result) {
+            long inputStart = converter.firstInput(from);
+            int inputLength = (int) (converter.lastInput(from + length - 1) - inputStart + 1);
+            if (input.length < inputLength) {
+                input = new double[inputLength];
+            }
+            for (int i = 0; i < inputLength; i++) {
+                input[i] = argColumn.value((int) Math.max(0, inputStart + i));
+            }
+            for (int i = 0; i < length; i++) {
+                result[i] = converter.convert(from + i, input, inputStart);
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.biorecorder.data.frame.impl;
+
+import com.biorecorder.data.frame.Column;
+import com.biorecorder.data.frame.RollingAggregation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Column of the argument column values aggregated over the trailing window
+ * [i - windowSize + 1, i] (windows at the beginning of the data are shorter).
+ * Values are calculated lazily by blocks and every value is updated in amortized O(1):
+ * mean, rms and std by running sums and min, max by monotonic deque.
+ * <p>
+ * Like in {@link IirFilterColumn} the window state at the beginning of every block
+ * is saved (checkpoint) when the block is passed for the first time, so the calculation
+ * of a block never re-reads the preceding window but starts from its checkpoint.
+ */
+public class RollingColumn extends DoubleColumn {
+
+    /**
+     * @param maxCachedBytes memory budget to memoize calculated values. 0 - no memoization
+     */
+    public RollingColumn(RollingAggregation aggregation, int windowSize, Column argColumn, long maxCachedBytes) {
+        super(new RollingSequence(aggregation, windowSize, argColumn, BlockCachedSequence.blocksInBudget(maxCachedBytes)));
+    }
+
+    static class RollingSequence extends BlockCachedSequence {
+        private final RollingAggregation aggregation;
+        private final int windowSize;
+        private final Column argColumn;
+        private final boolean isExtremum;
+        // checkpoints.get(k) - window state before the value k * BLOCK_SIZE
+        private final List<WindowState> checkpoints = new ArrayList<>();
+        // sums are accumulated relative to the first value to avoid
+        // precision loss on signals with big constant offset
+        private double shift;
+        private double sum;
+        private double sumOfSquares;
+        // deque holds positions of the window values in monotonic order, the front is the extremum
+        private int[] dequePositions = new int[16];
+        private double[] dequeValues = new double[16];
+        private int head;
+        private int tail;
+
+        RollingSequence(RollingAggregation aggregation, int windowSize, Column argColumn, int maxCachedBlocks) {
+            super(maxCachedBlocks);
+            if (windowSize < 1) {
+                String errMsg = "Window size = " + windowSize + " Expected > 0";
+                throw new IllegalArgumentException(errMsg);
+            }
+            this.aggregation = aggregation;
+            this.windowSize = windowSize;
+            this.argColumn = argColumn;
+            isExtremum = aggregation == RollingAggregation.MIN || aggregation == RollingAggregation.MAX;
+        }
+
+        @Override
+        public int size() {
+            return argColumn.size();
+        }
+
+        @Override
+        protected void calculate(int from, int length, double[] result) {
+            int blockNumber = from / BLOCK_SIZE;
+            restoreCheckpoint(blockNumber);
+            int blockStart = blockNumber * BLOCK_SIZE;
+            for (int i = blockStart; i < from; i++) {
+                add(i);
+            }
+            for (int i = 0; i < length; i++) {
+                add(from + i);
+                result[i] = value(from + i);
+            }
+            int end = from + length;
+            if (end == blockStart + BLOCK_SIZE && checkpoints.size() == blockNumber + 1) {
+                checkpoints.add(new WindowState());
+            }
+        }
+
+        /**
+         * Sets the window state to the checkpoint of the given block
+         * passing (and saving checkpoints of) all not yet passed preceding blocks
+         */
+        private void restoreCheckpoint(int blockNumber) {
+            if (checkpoints.isEmpty()) {
+                shift = argColumn.value(0);
+                checkpoints.add(new WindowState());
+            }
+            int lastCheckpoint = Math.min(blockNumber, checkpoints.size() - 1);
+            checkpoints.get(lastCheckpoint).restore();
+            for (int k = lastCheckpoint; k < blockNumber; k++) {
+                int blockStart = k * BLOCK_SIZE;
+                for (int i = blockStart; i < blockStart + BLOCK_SIZE; i++) {
+                    add(i);
+                }
+                checkpoints.add(new WindowState());
+            }
+        }
+
+        /**
+         * Moves the window end to the value i
+         */
+        private void add(int i) {
+            double value = argColumn.value(i);
+            if (isExtremum) {
+                boolean isMin = aggregation == RollingAggregation.MIN;
+                while (tail > head && (isMin ? dequeValues[tail - 1] >= value : dequeValues[tail - 1] <= value)) {
+                    tail--;
+                }
+                push(i, value);
+                if (dequePositions[head] <= i - windowSize) {
+                    head++;
+                }
+            } else {
+                value -= shift;
+                sum += value;
+                sumOfSquares += value * value;
+                if (i >= windowSize) {
+                    double removed = argColumn.value(i - windowSize) - shift;
+                    sum -= removed;
+                    sumOfSquares -= removed * removed;
+                }
+            }
+        }
+
+        /**
+         * @return aggregated value of the window ending at the value i
+         */
+        private double value(int i) {
+            if (isExtremum) {
+                return dequeValues[head];
+            }
+            int count = Math.min(i + 1, windowSize);
+            double mean = sum / count;
+            double variance = Math.max(0, sumOfSquares / count - mean * mean);
+            switch (aggregation) {
+                case MEAN:
+                    return shift + mean;
+                case RMS:
+                    double rawMean = shift + mean;
+                    return Math.sqrt(variance + rawMean * rawMean);
+                default:
+                    return Math.sqrt(variance);
+            }
+        }
+
+        private void push(int position, double value) {
+            if (tail == dequePositions.length) {
+                int size = tail - head;
+                if (size > dequePositions.length / 2) {
+                    dequePositions = Arrays.copyOf(dequePositions, dequePositions.length * 2);
+                    dequeValues = Arrays.copyOf(dequeValues, dequeValues.length * 2);
+                }
+                System.arraycopy(dequePositions, head, dequePositions, 0, size);
+                System.arraycopy(dequeValues, head, dequeValues, 0, size);
+                head = 0;
+                tail = size;
+            }
+            dequePositions[tail] = position;
+            dequeValues[tail] = value;
+            tail++;
+        }
+
+        private class WindowState {
+            private final double sum;
+            private final double sumOfSquares;
+            private final int[] positions;
+            private final double[] values;
+
+            WindowState() {
+                sum = RollingSequence.this.sum;
+                sumOfSquares = RollingSequence.this.sumOfSquares;
+                positions = Arrays.copyOfRange(dequePositions, head, tail);
+                values = Arrays.copyOfRange(dequeValues, head, tail);
+            }
+
+            void restore() {
+                RollingSequence.this.sum = sum;
+                RollingSequence.this.sumOfSquares = sumOfSquares;
+                int size = positions.length;
+                if (dequePositions.length < size) {
+                    dequePositions = new int[size * 2];
+                    dequeValues = new double[size * 2];
+                }
+                System.arraycopy(positions, 0, dequePositions, 0, size);
+                System.arraycopy(values, 0, dequeValues, 0, size);
+                head = 0;
+                tail = size;
+            }
+        }
+    }
+}
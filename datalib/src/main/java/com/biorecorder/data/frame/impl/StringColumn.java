@@ -2,30 +2,52 @@ package com.biorecorder.data.frame.impl;
 
 import com.biorecorder.data.frame.*;
 import com.biorecorder.data.sequence.IntSequence;
-import com.biorecorder.data.sequence.SequenceUtils;
 import com.biorecorder.data.sequence.StringSequence;
 import com.biorecorder.data.utils.PrimitiveUtils;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * Created by galafit on 26/4/19.
  */
 public class StringColumn implements Column {
+    // minimal number of rows sorted by one task in parallel mode
+    private static final int MIN_PARALLEL_CHUNK = 1 << 16;
     LongColumn intColumn;
-    private StringSequence labelSequence;
+    private StringDictionary dictionary;
+    // optional mapping from intColumn values to dictionary rows (used by sorted views)
+    private int[] labelOrder;
 
     public StringColumn(LongColumn intColumn, StringSequence labelSequence) {
-        this.intColumn = intColumn;
-        this.labelSequence = labelSequence;
+        this(intColumn, new StringDictionary(labelSequence, true), null);
     }
 
     public StringColumn(StringSequence labelSequence) {
-        this.labelSequence = labelSequence;
-        intColumn = new LongRegularColumn(0, 1, Integer.MAX_VALUE);
+        this(labelSequence, true);
+    }
+
+    /**
+     * @param isDataAppendMode if false labels are encoded at once
+     *                         and the label sequence is not referenced any more
+     */
+    public StringColumn(StringSequence labelSequence, boolean isDataAppendMode) {
+        this(new LongRegularColumn(0, 1, Integer.MAX_VALUE), new StringDictionary(labelSequence, isDataAppendMode), null);
+    }
+
+    StringColumn(LongColumn intColumn, StringDictionary dictionary, int[] labelOrder) {
+        this.intColumn = intColumn;
+        this.dictionary = dictionary;
+        this.labelOrder = labelOrder;
     }
 
     @Override
     public int size() {
-        return Math.min(intColumn.size(), labelSequence.size());
+        int labelCount = labelOrder == null ? dictionary.size() : labelOrder.length;
+        return Math.min(intColumn.size(), labelCount);
     }
 
     @Override
@@ -35,57 +57,140 @@ public class StringColumn implements Column {
 
     @Override
     public String label(int index) {
-        int labelIndex = PrimitiveUtils.long2int(intColumn.longValue(index));
-        if(labelIndex >= 0 && labelIndex < labelSequence.size()) {
-            return labelSequence.get(labelIndex);
+        int labelRow = labelRow(index);
+        if(labelRow >= 0) {
+            return dictionary.get(labelRow);
         }
         return intColumn.label(index);
     }
 
+    private int labelRow(int index) {
+        int labelIndex = PrimitiveUtils.long2int(intColumn.longValue(index));
+        if(labelOrder != null) {
+            if(labelIndex >= 0 && labelIndex < labelOrder.length) {
+                return labelOrder[labelIndex];
+            }
+            return -1;
+        }
+        if(labelIndex >= 0 && labelIndex < dictionary.size()) {
+            return labelIndex;
+        }
+        return -1;
+    }
+
     @Override
     public DataType dataType() {
         return DataType.String;
     }
 
+    /**
+     * Stable counting sort on the label ranks, so no string comparisons are done.
+     * Rows without labels go first. In parallel mode rows are split into chunks:
+     * every chunk counts its ranks and then places its rows to the positions
+     * that follow the rows with the same rank from the preceding chunks.
+     */
     @Override
     public int[] sort(int from, int length, boolean isParallel) {
-        return SequenceUtils.sort(labelSequence, from, length, isParallel);
+        // rank + 1 of every row (0 - for rows without labels)
+        int[] codes = new int[length];
+        for (int i = 0; i < length; i++) {
+            codes[i] = labelRow(from + i);
+        }
+        dictionary.toRanks(codes);
+        int chunks = 1;
+        if (isParallel) {
+            chunks = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), length / MIN_PARALLEL_CHUNK));
+        }
+        int chunkSize = (length + chunks - 1) / chunks;
+        int[][] counts = new int[chunks][dictionary.uniqueCount() + 1];
+        int[] orderedIndexes = new int[length];
+        runChunks(codes, counts, orderedIndexes, from, chunkSize, false);
+        // counts become the first positions of every rank in every chunk
+        int position = 0;
+        for (int rank = 0; rank < counts[0].length; rank++) {
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                int count = counts[chunk][rank];
+                counts[chunk][rank] = position;
+                position += count;
+            }
+        }
+        runChunks(codes, counts, orderedIndexes, from, chunkSize, true);
+        return orderedIndexes;
+    }
+
+    private static void runChunks(int[] codes, int[][] counts, int[] orderedIndexes, int from, int chunkSize, boolean isScatter) {
+        if (counts.length == 1) {
+            new SortChunk(codes, counts, orderedIndexes, from, 0, chunkSize, isScatter).compute();
+            return;
+        }
+        List<SortChunk> tasks = new ArrayList<>(counts.length);
+        for (int chunk = 0; chunk < counts.length; chunk++) {
+            tasks.add(new SortChunk(codes, counts, orderedIndexes, from, chunk, chunkSize, isScatter));
+        }
+        ForkJoinTask.invokeAll(tasks);
+    }
+
+    private static class SortChunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int[] codes;
+        private final int[] chunkCounts;
+        private final int[] orderedIndexes;
+        private final int from;
+        private final int chunkStart;
+        private final int chunkEnd;
+        private final boolean isScatter;
+
+        SortChunk(int[] codes, int[][] counts, int[] orderedIndexes, int from, int chunk, int chunkSize, boolean isScatter) {
+            this.codes = codes;
+            this.chunkCounts = counts[chunk];
+            this.orderedIndexes = orderedIndexes;
+            this.from = from;
+            this.isScatter = isScatter;
+            chunkStart = chunk * chunkSize;
+            chunkEnd = Math.min(codes.length, chunkStart + chunkSize);
+        }
+
+        @Override
+        protected void compute() {
+            if (isScatter) {
+                for (int i = chunkStart; i < chunkEnd; i++) {
+                    orderedIndexes[chunkCounts[codes[i]]++] = i + from;
+                }
+            } else {
+                for (int i = chunkStart; i < chunkEnd; i++) {
+                    chunkCounts[codes[i]]++;
+                }
+            }
+        }
     }
 
     @Override
     public Column slice(int from, int length) {
-        return new StringColumn((LongColumn) intColumn.slice(from, length), labelSequence);
+        return new StringColumn((LongColumn) intColumn.slice(from, length), dictionary, labelOrder);
     }
 
     @Override
     public Column slice(int from) {
-        return new StringColumn((LongColumn) intColumn.slice(from), labelSequence);
+        return new StringColumn((LongColumn) intColumn.slice(from), dictionary, labelOrder);
     }
 
     @Override
     public Column view(int from) {
-        return new StringColumn((LongColumn) intColumn.view(from), labelSequence);
+        return new StringColumn((LongColumn) intColumn.view(from), dictionary, labelOrder);
     }
 
     @Override
     public Column view(int from, int length) {
-        return new StringColumn((LongColumn) intColumn.view(from, length), labelSequence);
+        return new StringColumn((LongColumn) intColumn.view(from, length), dictionary, labelOrder);
     }
 
     @Override
     public Column view(int[] order) {
-        StringSequence subSequence = new StringSequence() {
-            @Override
-            public int size() {
-                return order.length;
-            }
-
-            @Override
-            public String get(int index) {
-                return labelSequence.get(order[index]);
-            }
-        };
-        return new StringColumn(subSequence);
+        int[] orderedLabels = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            orderedLabels[i] = labelRow(order[i]);
+        }
+        return new StringColumn(new LongRegularColumn(0, 1, Integer.MAX_VALUE), dictionary, orderedLabels);
     }
 
 
@@ -94,6 +199,11 @@ public class StringColumn implements Column {
         return intColumn.bisect(value, from, length);
     }
 
+    @Override
+    public void bisect(double[] sortedValues, int from, int length, int[] resultIndexes) {
+        intColumn.bisect(sortedValues, from, length, resultIndexes);
+    }
+
     @Override
     public Stats stats(int length) {
         return intColumn.stats(length);
@@ -109,14 +219,24 @@ public class StringColumn implements Column {
         return intColumn.group(timeInterval, length);
     }
 
+    @Override
+    public void enablePrefixSums() {
+        intColumn.enablePrefixSums();
+    }
+
+    @Override
+    public IntSequence group(double[] edges, DynamicSize length) {
+        return intColumn.group(edges, length);
+    }
+
 
     @Override
     public Column resample(Aggregation aggregation, IntSequence groupIndexes, boolean isDataAppendMode) {
-        return new StringColumn((LongColumn) intColumn.resample(aggregation, groupIndexes, isDataAppendMode), labelSequence);
+        return new StringColumn((LongColumn) intColumn.resample(aggregation, groupIndexes, isDataAppendMode), dictionary, labelOrder);
     }
 
     @Override
     public Column resample(Aggregation aggregation, int points, boolean isDataAppendMode) {
-        return new StringColumn((LongColumn) intColumn.resample(aggregation, points, isDataAppendMode), labelSequence);
+        return new StringColumn((LongColumn) intColumn.resample(aggregation, points, isDataAppendMode), dictionary, labelOrder);
     }
 }
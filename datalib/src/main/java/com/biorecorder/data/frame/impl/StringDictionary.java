@@ -0,0 +1,111 @@
+package com.biorecorder.data.frame.impl;
+
+import com.biorecorder.data.list.IntArrayList;
+import com.biorecorder.data.sequence.SequenceUtils;
+import com.biorecorder.data.sequence.StringSequence;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary encoding of the StringSequence. Every unique string is stored only once
+ * and every row holds the int code of its string. Codes are given in order
+ * of appearance (so already encoded rows stay valid when new data is appended)
+ * and every code has its rank - the position of the string in the sorted dictionary.
+ * So sorting and comparing rows by their strings come down to int operations.
+ * <p>
+ * Rows are encoded on ingest: all available rows when the dictionary is created
+ * and appended ones when the size is requested (data frame does it on appendData).
+ * If the source can not grow it is released after encoding together with
+ * the string to code map, so only unique strings and row codes are kept.
+ * All methods that may touch the dictionary are synchronized.
+ */
+class StringDictionary {
+    private StringSequence source;
+    private Map<String, Integer> stringToCode = new HashMap<>();
+    private final IntArrayList rowCodes = new IntArrayList();
+    private final List<String> uniqueStrings = new ArrayList<>();
+    private int[] codeToRank = new int[0];
+
+    /**
+     * @param isSourceGrowing true if new strings may be appended to the source
+     */
+    public StringDictionary(StringSequence source, boolean isSourceGrowing) {
+        this.source = source;
+        ingest();
+        if (!isSourceGrowing) {
+            this.source = null;
+            stringToCode = null;
+        }
+    }
+
+    public synchronized int size() {
+        ingest();
+        return rowCodes.size();
+    }
+
+    public synchronized int uniqueCount() {
+        return uniqueStrings.size();
+    }
+
+    public synchronized String get(int row) {
+        return uniqueStrings.get(rowCodes.get(row));
+    }
+
+    /**
+     * Replaces every row number by the rank of its string + 1
+     * (negative row numbers - rows without strings - by 0)
+     */
+    public synchronized void toRanks(int[] rows) {
+        if (codeToRank.length != uniqueStrings.size()) {
+            updateRanks();
+        }
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = rows[i] >= 0 ? codeToRank[rowCodes.get(rows[i])] + 1 : 0;
+        }
+    }
+
+    /**
+     * Encodes the rows appended to the source since the last call
+     */
+    private void ingest() {
+        if (source == null) {
+            return;
+        }
+        int size = source.size();
+        for (int i = rowCodes.size(); i < size; i++) {
+            rowCodes.add(encode(source.get(i)));
+        }
+    }
+
+    private int encode(String string) {
+        Integer code = stringToCode.get(string);
+        if (code == null) {
+            code = uniqueStrings.size();
+            uniqueStrings.add(string);
+            stringToCode.put(string, code);
+        }
+        return code;
+    }
+
+    private void updateRanks() {
+        StringSequence dictionary = new StringSequence() {
+            @Override
+            public int size() {
+                return uniqueStrings.size();
+            }
+
+            @Override
+            public String get(int index) {
+                return uniqueStrings.get(index);
+            }
+        };
+        int[] sortedCodes = SequenceUtils.sort(dictionary, 0, dictionary.size(), false);
+        codeToRank = new int[sortedCodes.length];
+        for (int rank = 0; rank < sortedCodes.length; rank++) {
+            codeToRank[sortedCodes[rank]] = rank;
+        }
+    }
+}
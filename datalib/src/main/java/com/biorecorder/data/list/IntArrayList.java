@@ -132,6 +132,19 @@ public class IntArrayList implements IntSequence {
         size += numNew;
     }
 
+    /**
+     * Copies <tt>length</tt> elements starting from <tt>sourcePos</tt>
+     * into the given array starting from <tt>destPos</tt>.
+     *
+     * @throws IndexOutOfBoundsException
+     */
+    public void toArray(int[] dest, int sourcePos, int destPos, int length) {
+        if (length == 0) return;
+        rangeCheck(sourcePos);
+        rangeCheck(sourcePos + length - 1);
+        System.arraycopy(data, sourcePos, dest, destPos, length);
+    }
+
     /**
      * Trims the capacity of this array list instance to be the
      * list's current size.
@@ -527,4 +527,144 @@ public class SequenceUtils {
 
         return low;
     }
+
+    /**
+     * Batched binary search. The sequence and the values must be sorted!
+     * For every value finds the index in the same way as
+     * {@link #bisect(DoubleSequence, double, int, int)} and puts it into resultIndexes.
+     * All values are resolved in one forward pass: every search starts from the index
+     * found for the previous value and its upper bound is found by exponential (galloping) steps,
+     * so close values are resolved in a few steps instead of restarting from the whole range.
+     */
+    public static void bisect(DoubleSequence data, double[] values, int from, int length, int[] resultIndexes) {
+        int low = from;
+        int end = from + length;
+        for (int i = 0; i < values.length; i++) {
+            double value = values[i];
+            int high = low;
+            int step = 1;
+            while (high < end && Double.compare(value, data.get(high)) > 0) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            if (high > end) {
+                high = end;
+            }
+            low = bisect(data, value, low, high - low);
+            resultIndexes[i] = low;
+        }
+    }
+
+    /**
+     * Batched binary search. The sequence and the values must be sorted!
+     * For every value finds the index in the same way as
+     * {@link #bisect(FloatSequence, float, int, int)} and puts it into resultIndexes.
+     * All values are resolved in one forward pass: every search starts from the index
+     * found for the previous value and its upper bound is found by exponential (galloping) steps,
+     * so close values are resolved in a few steps instead of restarting from the whole range.
+     */
+    public static void bisect(FloatSequence data, float[] values, int from, int length, int[] resultIndexes) {
+        int low = from;
+        int end = from + length;
+        for (int i = 0; i < values.length; i++) {
+            float value = values[i];
+            int high = low;
+            int step = 1;
+            while (high < end && Float.compare(value, data.get(high)) > 0) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            if (high > end) {
+                high = end;
+            }
+            low = bisect(data, value, low, high - low);
+            resultIndexes[i] = low;
+        }
+    }
+
+    /**
+     * Batched binary search. The sequence and the values must be sorted!
+     * For every value finds the index in the same way as
+     * {@link #bisect(IntSequence, int, int, int)} and puts it into resultIndexes.
+     * All values are resolved in one forward pass: every search starts from the index
+     * found for the previous value and its upper bound is found by exponential (galloping) steps,
+     * so close values are resolved in a few steps instead of restarting from the whole range.
+     */
+    public static void bisect(IntSequence data, int[] values, int from, int length, int[] resultIndexes) {
+        int low = from;
+        int end = from + length;
+        for (int i = 0; i < values.length; i++) {
+            int value = values[i];
+            int high = low;
+            int step = 1;
+            while (high < end && Integer.compare(value, data.get(high)) > 0) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            if (high > end) {
+                high = end;
+            }
+            low = bisect(data, value, low, high - low);
+            resultIndexes[i] = low;
+        }
+    }
+
+    /**
+     * Batched binary search. The sequence and the values must be sorted!
+     * For every value finds the index in the same way as
+     * {@link #bisect(LongSequence, long, int, int)} and puts it into resultIndexes.
+     * All values are resolved in one forward pass: every search starts from the index
+     * found for the previous value and its upper bound is found by exponential (galloping) steps,
+     * so close values are resolved in a few steps instead of restarting from the whole range.
+     */
+    public static void bisect(LongSequence data, long[] values, int from, int length, int[] resultIndexes) {
+        int low = from;
+        int end = from + length;
+        for (int i = 0; i < values.length; i++) {
+            long value = values[i];
+            int high = low;
+            int step = 1;
+            while (high < end && Long.compare(value, data.get(high)) > 0) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            if (high > end) {
+                high = end;
+            }
+            low = bisect(data, value, low, high - low);
+            resultIndexes[i] = low;
+        }
+    }
+
+    /**
+     * Batched binary search. The sequence and the values must be sorted!
+     * For every value finds the index in the same way as
+     * {@link #bisect(ShortSequence, short, int, int)} and puts it into resultIndexes.
+     * All values are resolved in one forward pass: every search starts from the index
+     * found for the previous value and its upper bound is found by exponential (galloping) steps,
+     * so close values are resolved in a few steps instead of restarting from the whole range.
+     */
+    public static void bisect(ShortSequence data, short[] values, int from, int length, int[] resultIndexes) {
+        int low = from;
+        int end = from + length;
+        for (int i = 0; i < values.length; i++) {
+            short value = values[i];
+            int high = low;
+            int step = 1;
+            while (high < end && Short.compare(value, data.get(high)) > 0) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            if (high > end) {
+                high = end;
+            }
+            low = bisect(data, value, low, high - low);
+            resultIndexes[i] = low;
+        }
+    }
 }
@@ -0,0 +1,79 @@
+package com.biorecorder.data.utils;
+
+/**
+ * In-place iterative radix-2 fast Fourier transform
+ */
+public class FftUtils {
+
+    public static boolean isPowerOfTwo(int n) {
+        return n > 0 && (n & (n - 1)) == 0;
+    }
+
+    /**
+     * @return cos and sin tables for the transform of the given size:
+     * table[0][k] = cos(2 * PI * k / n), table[1][k] = sin(2 * PI * k / n), k &lt; n/2
+     */
+    public static double[][] twiddleTable(int n) {
+        checkSize(n);
+        double[][] table = new double[2][n / 2];
+        for (int k = 0; k < n / 2; k++) {
+            double angle = 2 * Math.PI * k / n;
+            table[0][k] = Math.cos(angle);
+            table[1][k] = Math.sin(angle);
+        }
+        return table;
+    }
+
+    /**
+     * Forward transform of the complex data (re, im) of power of two length.
+     *
+     * @param twiddleTable table created by {@link #twiddleTable(int)} for the data length
+     */
+    public static void fft(double[] re, double[] im, double[][] twiddleTable) {
+        int n = re.length;
+        checkSize(n);
+        // bit reversal permutation
+        for (int i = 1, j = 0; i < n; i++) {
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1) {
+                j ^= bit;
+            }
+            j ^= bit;
+            if (i < j) {
+                double tmp = re[i];
+                re[i] = re[j];
+                re[j] = tmp;
+                tmp = im[i];
+                im[i] = im[j];
+                im[j] = tmp;
+            }
+        }
+        double[] cos = twiddleTable[0];
+        double[] sin = twiddleTable[1];
+        for (int length = 2; length <= n; length <<= 1) {
+            int half = length >> 1;
+            int tableStep = n / length;
+            for (int i = 0; i < n; i += length) {
+                for (int k = 0; k < half; k++) {
+                    double wr = cos[k * tableStep];
+                    double wi = -sin[k * tableStep];
+                    int even = i + k;
+                    int odd = even + half;
+                    double oddRe = re[odd] * wr - im[odd] * wi;
+                    double oddIm = re[odd] * wi + im[odd] * wr;
+                    re[odd] = re[even] - oddRe;
+                    im[odd] = im[even] - oddIm;
+                    re[even] += oddRe;
+                    im[even] += oddIm;
+                }
+            }
+        }
+    }
+
+    private static void checkSize(int n) {
+        if (!isPowerOfTwo(n)) {
+            String errMsg = "Transform size: " + n + " must be a power of two";
+            throw new IllegalArgumentException(errMsg);
+        }
+    }
+}